@@ -45,6 +45,7 @@ public class PetclinicInitializer extends AbstractDispatcherServletInitializer {
      * <p>
      * When using Spring jpa, use: jpa
      * When using Spring JDBC, use: jdbc
+     * When using Spring JDBC with owners sharded over several databases, use: jdbc-sharded
      * When using Spring Data JPA, use: spring-data-jpa
      * <p/>
      * <p>
@@ -30,11 +30,26 @@
  */
 package org.springframework.samples.petclinic.config;
 
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Description;
 import org.springframework.context.annotation.Import;
 import org.springframework.context.annotation.ImportResource;
 import org.springframework.context.annotation.PropertySource;
+import org.springframework.samples.petclinic.repository.BulkWrites;
+import org.springframework.samples.petclinic.repository.OwnerExportRepository;
+import org.springframework.samples.petclinic.repository.PetRepository;
+import org.springframework.samples.petclinic.repository.ReferenceDataCache;
+import org.springframework.samples.petclinic.repository.VetRepository;
+import org.springframework.samples.petclinic.repository.jdbc.JdbcOwnerExportRepositoryImpl;
+import org.springframework.samples.petclinic.service.VetCacheLoader;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 @Configuration
@@ -42,9 +57,38 @@ import org.springframework.transaction.annotation.EnableTransactionManagement;
 // Configurer that replaces ${...} placeholders with values from a properties file
 // (in this case, JDBC-related settings for the JPA EntityManager definition below)
 @PropertySource("classpath:spring/data-access.properties")
-@EnableTransactionManagement
-@Import({DataSourceConfig.class, InitDataSourceConfig.class, JdbcConfig.class, SharedJpaConfig.class, JpaConfig.class, SpringDataJpaConfig.class})
+// ordered after the caching advisor of ToolsConfig, so that transactions commit before caches are evicted
+@EnableTransactionManagement(order = 200)
+@Import({DataSourceConfig.class, InitDataSourceConfig.class, JdbcConfig.class, ShardedJdbcConfig.class, SharedJpaConfig.class, JpaConfig.class, SpringDataJpaConfig.class})
 public class BusinessConfig {
-		
+
+	@Bean
+	@Description("Pet types and specialties shared by the service layer and the repositories of every profile")
+	public ReferenceDataCache referenceDataCache(ObjectProvider<PetRepository> petRepository,
+			ObjectProvider<VetRepository> vetRepository, ObjectProvider<CacheManager> cacheManager,
+			ObjectProvider<PlatformTransactionManager> transactionManager) {
+		return new ReferenceDataCache(petRepository, vetRepository, cacheManager, transactionManager);
+	}
+
+	@Bean
+	@Description("Batch size of the bulk saves of owners and visits, for every persistence profile")
+	public BulkWrites bulkWrites(@Value("${bulk.batchSize:500}") int batchSize) {
+		return new BulkWrites(batchSize);
+	}
+
+	@Bean
+	@NotProfile("jdbc-sharded")
+	@Description("Rows of the owner export, read from the database whatever the persistence profile")
+	public OwnerExportRepository ownerExportRepository(DataSource dataSource,
+			@Value("${jdbc.exportFetchSize:500}") int fetchSize) {
+		return new JdbcOwnerExportRepositoryImpl(dataSource, fetchSize);
+	}
+
+	@Bean
+	@Description("Reloads the vets cache in the background before it expires")
+	public VetCacheLoader vetCacheLoader(VetRepository vetRepository, PlatformTransactionManager transactionManager,
+			ObjectProvider<CacheManager> cacheManager) {
+		return new VetCacheLoader(vetRepository, transactionManager, cacheManager);
+	}
 
 }
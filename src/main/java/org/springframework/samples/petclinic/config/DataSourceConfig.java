@@ -30,6 +30,8 @@
  */
 package org.springframework.samples.petclinic.config;
 
+import java.util.Properties;
+
 import javax.sql.DataSource;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -38,8 +40,16 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Description;
 import org.springframework.context.annotation.Profile;
 import org.springframework.context.annotation.PropertySource;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.EnumerablePropertySource;
 import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
 import org.springframework.jndi.JndiObjectFactoryBean;
+import org.springframework.samples.petclinic.util.ConnectionPoolMonitor;
+import org.springframework.samples.petclinic.util.PooledDataSource;
+import org.springframework.samples.petclinic.util.ReplicaRoutingDataSource;
+import org.springframework.samples.petclinic.util.SlowQueryDataSource;
+import org.springframework.samples.petclinic.util.SlowQueryLog;
 
 @Configuration
 @PropertySource("classpath:spring/data-access.properties")
@@ -49,17 +59,66 @@ public class DataSourceConfig {
 	private Environment env;
 	
 	@Bean(name = "dataSource")
-	@Description("DataSource configuration for the tomcat jdbc connection pool")
+	@Description("DataSource configuration for the connection pool, the tomcat jdbc connection pool by default, and the read replicas")
 	@NotProfile("javaee")
 	public DataSource dataSource() {
 		// See here for more details on commons-dbcp versus tomcat-jdbc:
 		// http://blog.ippon.fr/2013/03/13/improving-the-performance-of-the-spring-petclinic-sample-application-part-3-of-5/-->
-		org.apache.tomcat.jdbc.pool.DataSource dataSource = new org.apache.tomcat.jdbc.pool.DataSource();
+		PooledDataSource dataSource = new PooledDataSource();
+		dataSource.setType(env.getProperty("jdbc.pool.type", PooledDataSource.TOMCAT));
 		dataSource.setDriverClassName(env.getProperty("jdbc.driverClassName"));
 		dataSource.setUrl(env.getProperty("jdbc.url"));
 		dataSource.setUsername(env.getProperty("jdbc.username"));
 		dataSource.setPassword(env.getProperty("jdbc.password"));
-		return dataSource;
+		dataSource.setProperties(poolProperties());
+		dataSource.afterPropertiesSet();
+		// sends read-only transactions to the read replicas, if any
+		ReplicaRoutingDataSource routingDataSource = new ReplicaRoutingDataSource(dataSource);
+		routingDataSource.setReplicaUrls(env.getProperty("jdbc.replica.urls", String[].class, new String[0]));
+		routingDataSource.setReplicaInitScripts(env.getProperty("jdbc.replica.initScripts", String[].class, new String[0]));
+		routingDataSource.setHealthCheckInterval(env.getRequiredProperty("jdbc.replica.healthCheckInterval", Long.class));
+		routingDataSource.setReadYourWritesWindow(env.getRequiredProperty("jdbc.replica.readYourWritesWindow", Long.class));
+		routingDataSource.afterPropertiesSet();
+		if (env.acceptsProfiles(Profiles.of("jdbc"))) {
+			// times the statements of the JDBC repositories, see SlowQueryLog
+			return new SlowQueryDataSource(routingDataSource, slowQueryLog());
+		}
+		return routingDataSource;
+	}
+
+	@Bean
+	@Description("Connection pool state and connection wait times")
+	@NotProfile("javaee")
+	public ConnectionPoolMonitor connectionPoolMonitor() {
+		return new ConnectionPoolMonitor(dataSource());
+	}
+
+	@Bean
+	@Description("Statistics and slowest executions of the SQL statements of the JDBC repositories")
+	@Profile("jdbc")
+	public SlowQueryLog slowQueryLog() {
+		SlowQueryLog slowQueryLog = new SlowQueryLog();
+		slowQueryLog.setThreshold(env.getRequiredProperty("jdbc.slowQueryThreshold", Long.class));
+		slowQueryLog.setCapacity(env.getRequiredProperty("jdbc.slowQueryLogSize", Integer.class));
+		return slowQueryLog;
+	}
+
+	/**
+	 * Collects the settings of the pool implementation from all property sources, see
+	 * {@link PooledDataSource#poolProperties}.
+	 */
+	private Properties poolProperties() {
+		Properties properties = new Properties();
+		for (org.springframework.core.env.PropertySource<?> source : ((ConfigurableEnvironment) env).getPropertySources()) {
+			if (source instanceof EnumerablePropertySource) {
+				for (String name : ((EnumerablePropertySource<?>) source).getPropertyNames()) {
+					if (name.startsWith(PooledDataSource.PROPERTY_PREFIX)) {
+						properties.setProperty(name, env.getProperty(name));
+					}
+				}
+			}
+		}
+		return PooledDataSource.poolProperties(properties);
 	}
 
 	@Bean(name = "dataSource")
@@ -43,6 +43,8 @@ import org.springframework.format.FormatterRegistry;
 import org.springframework.http.MediaType;
 import org.springframework.samples.petclinic.service.ClinicService;
 import org.springframework.samples.petclinic.web.PetTypeFormatter;
+import org.springframework.samples.petclinic.web.ReadYourWritesInterceptor;
+import org.springframework.samples.petclinic.web.RequestTimingInterceptor;
 import org.springframework.web.servlet.HandlerExceptionResolver;
 import org.springframework.web.servlet.config.annotation.*;
 import org.springframework.web.servlet.handler.SimpleMappingExceptionResolver;
@@ -68,6 +70,12 @@ public class MvcCoreConfig implements WebMvcConfigurer {
 	@Autowired
 	private ClinicService clinicService;
 
+	@Autowired
+	private RequestTimingInterceptor requestTimingInterceptor;
+
+	@Autowired
+	private ReadYourWritesInterceptor readYourWritesInterceptor;
+
 	@Override
 	public void configureContentNegotiation(
 			ContentNegotiationConfigurer configurer) {
@@ -106,6 +114,14 @@ public class MvcCoreConfig implements WebMvcConfigurer {
 				"classpath:/META-INF/resources/webjars/");
 	}
 
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		// times handler methods and view rendering, see RequestTimingMonitor
+		registry.addInterceptor(requestTimingInterceptor);
+		// keeps the reads of a client that has just written on the primary database, see ReplicaRoutingDataSource
+		registry.addInterceptor(readYourWritesInterceptor);
+	}
+
     @Override
     public void addViewControllers(ViewControllerRegistry registry) {
         registry.addViewController("/").setViewName("welcome");
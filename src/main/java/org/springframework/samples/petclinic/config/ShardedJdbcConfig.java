@@ -0,0 +1,72 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Description;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.repository.ReferenceDataCache;
+import org.springframework.samples.petclinic.repository.jdbc.JdbcVetRepositoryImpl;
+import org.springframework.samples.petclinic.repository.sharded.Shards;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@Configuration
+@Profile("jdbc-sharded")
+@ComponentScan("org.springframework.samples.petclinic.repository.sharded")
+public class ShardedJdbcConfig {
+
+	@Autowired
+	private Environment env;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Bean
+	@Description("Databases holding the owners, their pets and their visits, by owner id")
+	public Shards shards() {
+		Shards shards = new Shards(dataSource);
+		shards.setShardUrls(env.getRequiredProperty("jdbc.shard.urls", String[].class));
+		shards.setShardInitScripts(env.getProperty("jdbc.shard.initScripts", String[].class, new String[0]));
+		shards.setIdBlockSize(env.getRequiredProperty("jdbc.shard.idBlockSize", Integer.class));
+		shards.setScatterThreads(env.getRequiredProperty("jdbc.shard.scatterThreads", Integer.class));
+		return shards;
+	}
+
+	@Bean(name = "transactionManager")
+	@Description("Transactions over all shards, a shard only taking a connection when used")
+	public PlatformTransactionManager shardsTransactionManager() {
+		return shards().newTransactionManager();
+	}
+
+	@Bean
+	public JdbcTemplate jdbcTemplate() {
+		return new JdbcTemplate(dataSource);
+	}
+
+	@Bean
+	@Description("Vets and specialties, in the main database")
+	public JdbcVetRepositoryImpl vetRepository(ReferenceDataCache referenceDataCache) {
+		return new JdbcVetRepositoryImpl(jdbcTemplate(), referenceDataCache);
+	}
+
+}
@@ -30,7 +30,11 @@
  */
 package org.springframework.samples.petclinic.config;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import javax.persistence.EntityManagerFactory;
+import javax.persistence.SharedCacheMode;
 import javax.sql.DataSource;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -44,6 +48,7 @@ import org.springframework.orm.jpa.JpaVendorAdapter;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
 import org.springframework.orm.jpa.vendor.Database;
 import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.samples.petclinic.util.SecondLevelCacheMonitor;
 
 @Configuration
 @Profile({"jpa", "spring-data-jpa"})
@@ -63,10 +68,30 @@ public class SharedJpaConfig {
         em.setPersistenceUnitName("petclinic");
         em.setPackagesToScan("org.springframework.samples.petclinic");
         em.setJpaVendorAdapter(jpaVendorAdaper());
+        // second-level cache for the entities annotated with @Cacheable, see cache/hibernate-ehcache.xml
+        em.setSharedCacheMode(SharedCacheMode.ENABLE_SELECTIVE);
+        em.setJpaPropertyMap(jpaProperties());
         em.afterPropertiesSet();
         return em.getObject();
     }
     
+    private Map<String, Object> jpaProperties() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("hibernate.cache.use_second_level_cache", env.getProperty("jpa.secondLevelCache"));
+        properties.put("hibernate.cache.use_query_cache", env.getProperty("jpa.queryCache"));
+        // saving a pet or a visit evicts the cached pets of its owner or visits of its pet
+        properties.put("hibernate.cache.auto_evict_collection_cache", true);
+        properties.put("hibernate.cache.region.factory_class", "ehcache");
+        properties.put("net.sf.ehcache.configurationResourceName", "/cache/hibernate-ehcache.xml");
+        properties.put("hibernate.generate_statistics", env.getProperty("jpa.generateStatistics"));
+        properties.put("hibernate.jdbc.batch_size", env.getProperty("jpa.batchSize"));
+        properties.put("hibernate.order_inserts", env.getProperty("jpa.orderInserts"));
+        properties.put("hibernate.order_updates", env.getProperty("jpa.orderUpdates"));
+        properties.put("hibernate.jdbc.fetch_size", env.getProperty("jpa.fetchSize"));
+        properties.put("hibernate.query.plan_cache_max_size", env.getProperty("jpa.queryPlanCacheMaxSize"));
+        return properties;
+    }
+
     @Bean
     public JpaVendorAdapter jpaVendorAdaper() {
         HibernateJpaVendorAdapter vendorAdapter = new HibernateJpaVendorAdapter();
@@ -85,6 +110,11 @@ public class SharedJpaConfig {
         return jpaTransactionManager;
     }
     
+    @Bean
+    public SecondLevelCacheMonitor secondLevelCacheMonitor() {
+        return new SecondLevelCacheMonitor(entityManagerFactory());
+    }
+
     @Bean
     public PersistenceExceptionTranslationPostProcessor persistenceExceptionTranslationPostProcessor() {
     	return new PersistenceExceptionTranslationPostProcessor();
@@ -30,44 +30,72 @@
  */
 package org.springframework.samples.petclinic.config;
 
-import net.sf.ehcache.CacheManager;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.UnaryOperator;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.ehcache.EhCacheCacheManager;
-import org.springframework.cache.ehcache.EhCacheManagerFactoryBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Description;
 import org.springframework.context.annotation.EnableAspectJAutoProxy;
 import org.springframework.context.annotation.EnableMBeanExport;
-import org.springframework.core.io.ClassPathResource;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.core.env.Environment;
+import org.springframework.jmx.export.MBeanExportOperations;
+import org.springframework.samples.petclinic.service.VetCacheLoader;
 import org.springframework.samples.petclinic.util.CallMonitoringAspect;
+import org.springframework.samples.petclinic.util.ClinicCacheManager;
+import org.springframework.samples.petclinic.util.EntityGraphCopier;
+import org.springframework.samples.petclinic.util.RequestTimingMonitor;
 
 @Configuration
-@EnableCaching // enables scanning for @Cacheable annotation
+// enables scanning for @Cacheable annotation; ordered before the transaction advisor of BusinessConfig, so that
+// evictions run once the transaction of the method has committed
+@EnableCaching(order = 100)
 @EnableMBeanExport
 @EnableAspectJAutoProxy
+@PropertySource("classpath:spring/data-access.properties")
 public class ToolsConfig {
+
+	@Autowired
+	private Environment env;
 	
 	@Bean
     @Description("Call monitoring aspect that monitors call count and call invocation time")
-	public CallMonitoringAspect callMonitor() {
-		return new CallMonitoringAspect();
+	public CallMonitoringAspect callMonitor(ObjectProvider<MBeanExportOperations> mbeanExporter) {
+		return new CallMonitoringAspect(mbeanExporter);
+	}
+
+	@Bean
+	@Description("Aggregates the time spent by web requests in their handler, services, repositories and view")
+	public RequestTimingMonitor requestTimingMonitor() {
+		return new RequestTimingMonitor();
 	}
 	
 	@Bean
-	@Autowired
-	public EhCacheCacheManager ehCacheCacheManager(CacheManager cacheManager) {
-		EhCacheCacheManager ehCacheCacheManager = new EhCacheCacheManager();
-		ehCacheCacheManager.setCacheManager(cacheManager);
-		return ehCacheCacheManager;
+	@Description("Copies the cached owners and pets, so that each request works on its own objects")
+	public EntityGraphCopier entityGraphCopier() {
+		return new EntityGraphCopier();
 	}
 
 	@Bean
-	public EhCacheManagerFactoryBean cacheManager() {
-		EhCacheManagerFactoryBean ehCacheManager = new EhCacheManagerFactoryBean();
-		ehCacheManager.setConfigLocation(new ClassPathResource("cache/ehcache.xml"));
-		return ehCacheManager;
+	@Description("Caffeine caches, each one configured by its cache.<name>.spec property")
+	public ClinicCacheManager cacheManager(VetCacheLoader vetCacheLoader) {
+		Map<String, String> cacheSpecifications = new LinkedHashMap<>();
+		for (String name : ClinicCacheManager.CACHE_NAMES) {
+			cacheSpecifications.put(name, env.getRequiredProperty("cache." + name + ".spec"));
+		}
+		ClinicCacheManager cacheManager = new ClinicCacheManager();
+		cacheManager.setCacheSpecifications(cacheSpecifications);
+		cacheManager.setCacheLoaders(Collections.singletonMap(ClinicCacheManager.VETS, vetCacheLoader));
+		Map<String, UnaryOperator<Object>> valueCopiers = new LinkedHashMap<>();
+		valueCopiers.put(ClinicCacheManager.OWNERS, entityGraphCopier());
+		valueCopiers.put(ClinicCacheManager.PETS, entityGraphCopier());
+		cacheManager.setValueCopiers(valueCopiers);
+		return cacheManager;
 	}
 }
@@ -16,12 +16,19 @@
 package org.springframework.samples.petclinic.model;
 
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.MappedSuperclass;
 
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.TableGenerator;
+
 /**
  * Simple JavaBean domain object with an id property. Used as a base class for objects needing this property.
+ * <p>
+ * With JPA, the ids of new objects come from the <code>id_generators</code> table, one row per entity table, 50 ids
+ * being reserved at a time: unlike identity columns, they are known before the insert, which lets Hibernate batch
+ * the inserts. The identity columns used by the JDBC profile start at 1000000000, above the ids of that table.
  *
  * @author Ken Krebs
  * @author Juergen Hoeller
@@ -29,7 +36,15 @@ import javax.persistence.MappedSuperclass;
 @MappedSuperclass
 public class BaseEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "id_generators")
+    @GenericGenerator(name = "id_generators", strategy = "org.hibernate.id.enhanced.TableGenerator", parameters = {
+        @Parameter(name = TableGenerator.TABLE_PARAM, value = "id_generators"),
+        @Parameter(name = TableGenerator.SEGMENT_COLUMN_PARAM, value = "name"),
+        @Parameter(name = TableGenerator.VALUE_COLUMN_PARAM, value = "next_value"),
+        @Parameter(name = TableGenerator.CONFIG_PREFER_SEGMENT_PER_ENTITY, value = "true"),
+        @Parameter(name = TableGenerator.INCREMENT_PARAM, value = "50"),
+        @Parameter(name = TableGenerator.OPT_PARAM, value = "pooled-lo")
+    })
     protected Integer id;
 
     public Integer getId() {
@@ -21,14 +21,22 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
+import javax.persistence.NamedEntityGraphs;
+import javax.persistence.NamedSubgraph;
 import javax.persistence.OneToMany;
 import javax.persistence.Table;
 import javax.validation.constraints.Digits;
 import javax.validation.constraints.NotEmpty;
 
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.springframework.beans.support.MutableSortDefinition;
 import org.springframework.beans.support.PropertyComparator;
 import org.springframework.core.style.ToStringCreator;
@@ -43,7 +51,26 @@ import org.springframework.core.style.ToStringCreator;
  */
 @Entity
 @Table(name = "owners")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NamedEntityGraphs({
+    @NamedEntityGraph(name = Owner.WITH_PETS, attributeNodes = @NamedAttributeNode("pets")),
+    @NamedEntityGraph(name = Owner.WITH_PETS_AND_VISITS,
+        attributeNodes = @NamedAttributeNode(value = "pets", subgraph = "visits"),
+        subgraphs = @NamedSubgraph(name = "visits", attributeNodes = @NamedAttributeNode("visits")))
+})
 public class Owner extends Person {
+
+    /**
+     * Entity graph loading the owner with its pets.
+     */
+    public static final String WITH_PETS = "owner-with-pets";
+
+    /**
+     * Entity graph loading the owner with its pets and their visits.
+     */
+    public static final String WITH_PETS_AND_VISITS = "owner-with-pets-and-visits";
+
     @Column(name = "address")
     @NotEmpty
     private String address;
@@ -58,6 +85,8 @@ public class Owner extends Person {
     private String telephone;
 
     @OneToMany(cascade = CascadeType.ALL, mappedBy = "owner")
+    @BatchSize(size = 20)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     private Set<Pet> pets;
 
 
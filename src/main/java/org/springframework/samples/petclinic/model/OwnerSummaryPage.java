@@ -0,0 +1,65 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.model;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of {@link OwnerSummary OwnerSummaries} ordered by last name and id. The last owner of the page is the
+ * cursor from which the next page can be read with a keyset search.
+ */
+public class OwnerSummaryPage implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<OwnerSummary> content;
+
+    private final int size;
+
+    private final boolean lastPage;
+
+    public OwnerSummaryPage(List<OwnerSummary> content, int size, boolean lastPage) {
+        this.content = Collections.unmodifiableList(new ArrayList<>(content));
+        this.size = size;
+        this.lastPage = lastPage;
+    }
+
+    public List<OwnerSummary> getContent() {
+        return this.content;
+    }
+
+    /**
+     * Return the maximum number of owners per page.
+     */
+    public int getSize() {
+        return this.size;
+    }
+
+    public boolean isLastPage() {
+        return this.lastPage;
+    }
+
+    /**
+     * Return the last owner of this page, or <code>null</code> if the page is empty.
+     */
+    public OwnerSummary getCursor() {
+        return this.content.isEmpty() ? null : this.content.get(this.content.size() - 1);
+    }
+
+}
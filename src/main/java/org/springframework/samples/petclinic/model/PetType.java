@@ -15,15 +15,21 @@
  */
 package org.springframework.samples.petclinic.model;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
 import javax.persistence.Table;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 /**
  * @author Juergen Hoeller
  *         Can be Cat, Dog, Hamster...
  */
 @Entity
 @Table(name = "types")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY)
 public class PetType extends NamedEntity {
 
 }
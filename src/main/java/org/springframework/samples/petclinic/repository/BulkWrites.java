@@ -0,0 +1,67 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.repository;
+
+import java.util.Collection;
+import java.util.function.Consumer;
+
+import javax.persistence.EntityManager;
+
+/**
+ * Batch size of the bulk saves (<code>saveAll</code>) of the repositories of every profile, set by the
+ * <code>bulk.batchSize</code> property: the JDBC repositories send that many rows per JDBC batch, and the JPA ones
+ * flush and clear the persistence context every that many entities, so that it does not grow with the number of
+ * entities saved.
+ */
+public class BulkWrites {
+
+    private final int batchSize;
+
+    public BulkWrites(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Return the number of rows or entities per batch.
+     */
+    public int getBatchSize() {
+        return this.batchSize;
+    }
+
+    /**
+     * Save the given entities one by one through the given callback, flushing and clearing the persistence context
+     * after each batch and flushing it once more at the end.
+     *
+     * @param entityManager the persistence context the callback saves to
+     * @param entities      the entities to save
+     * @param save          saves one entity, typically by persisting or merging it
+     */
+    public <T> void saveAll(EntityManager entityManager, Collection<? extends T> entities, Consumer<? super T> save) {
+        int count = 0;
+        for (T entity : entities) {
+            save.accept(entity);
+            if (++count % this.batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+    }
+
+}
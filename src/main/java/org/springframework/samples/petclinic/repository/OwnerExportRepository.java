@@ -0,0 +1,43 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.repository;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+/**
+ * Repository class reading every owner with their pets and visits as flat rows, for the streaming export.
+ * <p>
+ * The rows are read directly from the tables through a forward-only cursor, whatever the persistence profile, and
+ * handed to the caller one at a time: no entity is created and heap use does not grow with the size of the tables.
+ */
+public interface OwnerExportRepository {
+
+    /**
+     * Pass each export row to the given handler. A row has the columns <code>owner_id</code>,
+     * <code>first_name</code>, <code>last_name</code>, <code>address</code>, <code>city</code>,
+     * <code>telephone</code>, <code>pet_id</code>, <code>pet_name</code>, <code>birth_date</code>,
+     * <code>type_name</code>, <code>visit_id</code>, <code>visit_date</code> and <code>description</code>, one row
+     * per visit. A pet without visits, or an owner without pets, has a single row with <code>null</code> trailing
+     * columns.
+     * <p>
+     * The rows of an owner are consecutive, ordered by pet id then visit id.
+     *
+     * @param rowHandler the handler called for each row
+     */
+    void exportRows(RowCallbackHandler rowHandler) throws DataAccessException;
+
+}
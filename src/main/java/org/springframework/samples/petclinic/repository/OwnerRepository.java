@@ -20,6 +20,8 @@ import java.util.Collection;
 import org.springframework.dao.DataAccessException;
 import org.springframework.samples.petclinic.model.BaseEntity;
 import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.OwnerSummary;
+import org.springframework.samples.petclinic.model.OwnerSummaryPage;
 
 /**
  * Repository class for <code>Owner</code> domain objects All method names are compliant with Spring Data naming
@@ -42,6 +44,32 @@ public interface OwnerRepository {
      */
     Collection<Owner> findByLastName(String lastName) throws DataAccessException;
 
+    /**
+     * Retrieve one page of {@link OwnerSummary OwnerSummaries} of the owners whose last name <i>starts</i> with the
+     * given name, ordered by last name and id.
+     *
+     * @param lastName Value to search for
+     * @param page     zero-based page number
+     * @param size     maximum number of owners per page
+     * @throws IllegalArgumentException if the page ends beyond {@link Integer#MAX_VALUE} owners
+     * @see OwnerSummaryRows#offset(int, int)
+     */
+    OwnerSummaryPage findSummariesByLastName(String lastName, int page, int size) throws DataAccessException;
+
+    /**
+     * Retrieve the page of {@link OwnerSummary OwnerSummaries} of the owners whose last name <i>starts</i> with the
+     * given name and that come after the given cursor in (last name, id) order. Unlike a page number, the cursor does
+     * not make the data store read and discard the owners of the previous pages.
+     *
+     * @param lastName      Value to search for
+     * @param afterLastName last name of the cursor owner
+     * @param afterId       id of the cursor owner
+     * @param size          maximum number of owners per page
+     * @see OwnerSummaryPage#getCursor()
+     */
+    OwnerSummaryPage findSummariesByLastNameAfter(String lastName, String afterLastName, int afterId, int size)
+        throws DataAccessException;
+
     /**
      * Retrieve an <code>Owner</code> from the data store by id.
      *
@@ -60,5 +88,14 @@ public interface OwnerRepository {
      */
     void save(Owner owner) throws DataAccessException;
 
+    /**
+     * Insert new <code>Owner</code>s together with their <code>Pet</code>s, in batches, setting the id of every
+     * inserted owner and pet.
+     *
+     * @param owners the new <code>Owner</code>s to insert
+     * @throws IllegalArgumentException if one of the owners is not new
+     */
+    void saveAll(Collection<Owner> owners) throws DataAccessException;
+
 
 }
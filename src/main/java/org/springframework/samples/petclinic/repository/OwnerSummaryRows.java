@@ -0,0 +1,89 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.repository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.samples.petclinic.model.OwnerSummary;
+import org.springframework.samples.petclinic.model.OwnerSummaryPage;
+
+/**
+ * Builds {@link OwnerSummary OwnerSummaries} from the rows of projection queries. Owner rows hold, in this order:
+ * owner id, first name, last name, address, city and telephone. Owners keep the order of their first row and pet
+ * names the order of the rows they come from.
+ */
+public final class OwnerSummaryRows {
+
+    private OwnerSummaryRows() {
+    }
+
+    /**
+     * Combines owner rows with the rows of a separate pets query holding owner id and pet name, as used by the paged
+     * searches where a join would defeat the row limit.
+     */
+    public static List<OwnerSummary> toSummaries(List<Object[]> ownerRows, List<Object[]> petNameRows) {
+        Map<Integer, List<String>> petNames = new HashMap<>();
+        for (Object[] row : petNameRows) {
+            petNames.computeIfAbsent((Integer) row[0], ownerId -> new ArrayList<>()).add((String) row[1]);
+        }
+        List<OwnerSummary> summaries = new ArrayList<>(ownerRows.size());
+        for (Object[] row : ownerRows) {
+            Integer ownerId = (Integer) row[0];
+            summaries.add(new OwnerSummary(ownerId, (String) row[1], (String) row[2], (String) row[3],
+                (String) row[4], (String) row[5], petNames.getOrDefault(ownerId, Collections.emptyList())));
+        }
+        return summaries;
+    }
+
+    /**
+     * Builds a page from the summaries of a query limited to <code>size + 1</code> owners, the extra owner only
+     * telling whether a next page exists.
+     */
+    public static OwnerSummaryPage toPage(List<OwnerSummary> summaries, int size) {
+        boolean lastPage = summaries.size() <= size;
+        return new OwnerSummaryPage(lastPage ? summaries : summaries.subList(0, size), size, lastPage);
+    }
+
+    /**
+     * Return the offset of the first owner of the given page, checking that the page ends within the
+     * <code>int</code> range of row offsets and limits.
+     *
+     * @throws IllegalArgumentException if the page is negative, the size is not positive or the page ends beyond
+     *                                  {@link Integer#MAX_VALUE} owners
+     */
+    public static int offset(int page, int size) {
+        if (page < 0 || size < 1 || (page + 1L) * size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Page " + page + " of size " + size + " is out of range");
+        }
+        return page * size;
+    }
+
+    /**
+     * Return the ids of the given owner rows.
+     */
+    public static List<Integer> ownerIds(List<Object[]> ownerRows) {
+        List<Integer> ids = new ArrayList<>(ownerRows.size());
+        for (Object[] row : ownerRows) {
+            ids.add((Integer) row[0]);
+        }
+        return ids;
+    }
+
+}
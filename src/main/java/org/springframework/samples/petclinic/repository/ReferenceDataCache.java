@@ -0,0 +1,336 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.orm.ObjectRetrievalFailureException;
+import org.springframework.samples.petclinic.model.NamedEntity;
+import org.springframework.samples.petclinic.model.PetType;
+import org.springframework.samples.petclinic.model.Specialty;
+import org.springframework.samples.petclinic.util.ClinicCacheManager;
+import org.springframework.samples.petclinic.util.EntityIndex;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * In-process cache of the reference data ({@link PetType PetTypes} and {@link Specialty Specialties}) shared by the
+ * service layer and the repositories of every persistence profile.
+ * <p>
+ * Each kind of reference data is loaded once through its repository and kept as an immutable snapshot offering
+ * id and name lookups. The snapshots are held in the <code>petTypes</code> and <code>specialties</code> caches of
+ * the {@link CacheManager} when there is one, so their eviction settings and statistics are configured with the
+ * other caches; otherwise they are held in a local map. A snapshot stays in use until it is evicted or invalidated,
+ * either programmatically or through JMX after the <code>types</code> or <code>specialties</code> tables have been
+ * changed. The id lookups, which are fed with foreign keys read from the database, also reload the snapshot once
+ * when it lacks the id. Concurrent readers missing a snapshot wait for a single load.
+ * <p>
+ * A snapshot is loaded in a read-only transaction of its own when there is a transaction manager, joining the
+ * transaction of the caller if any, so that callers served from the cache need no transaction.
+ * <p>
+ * The repositories, the cache manager and the transaction manager are looked up lazily because the JDBC
+ * repositories themselves read their reference data from this cache.
+ */
+@ManagedResource("petclinic:type=ReferenceDataCache")
+public class ReferenceDataCache {
+
+    private final ObjectProvider<PetRepository> petRepository;
+
+    private final ObjectProvider<VetRepository> vetRepository;
+
+    private final ObjectProvider<CacheManager> cacheManager;
+
+    private final ObjectProvider<PlatformTransactionManager> transactionManager;
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private long nameMissReloadInterval = TimeUnit.SECONDS.toNanos(60);
+
+    private volatile Cache petTypes;
+
+    private volatile Cache specialties;
+
+    private volatile TransactionTemplate loadTransaction;
+
+    public ReferenceDataCache(ObjectProvider<PetRepository> petRepository, ObjectProvider<VetRepository> vetRepository) {
+        this(petRepository, vetRepository, null, null);
+    }
+
+    public ReferenceDataCache(ObjectProvider<PetRepository> petRepository, ObjectProvider<VetRepository> vetRepository,
+                              ObjectProvider<CacheManager> cacheManager,
+                              ObjectProvider<PlatformTransactionManager> transactionManager) {
+        this.petRepository = petRepository;
+        this.vetRepository = vetRepository;
+        this.cacheManager = cacheManager;
+        this.transactionManager = transactionManager;
+    }
+
+    /**
+     * Set the minimum age, in milliseconds, of a snapshot reloaded because a name lookup missed. Defaults to 60 s.
+     */
+    public void setNameMissReloadInterval(long nameMissReloadInterval) {
+        this.nameMissReloadInterval = TimeUnit.MILLISECONDS.toNanos(nameMissReloadInterval);
+    }
+
+    /**
+     * Return all <code>PetType</code>s, ordered by name.
+     */
+    public Collection<PetType> getPetTypes() throws DataAccessException {
+        return petTypes().all;
+    }
+
+    /**
+     * Return the <code>PetType</code> with the given id. An id missing from the snapshot reloads it once, so that a
+     * type added out of band and already referenced by a pet row does not fail the load of that pet.
+     *
+     * @throws ObjectRetrievalFailureException if not found after the reload
+     */
+    public PetType getPetType(int id) throws DataAccessException {
+        ReferenceData<PetType> snapshot = petTypes();
+        PetType petType = snapshot.byId.findById(id);
+        if (petType == null) {
+            evictIfCurrent(petTypesCache(), snapshot);
+            petType = petTypes().byId.getById(id);
+        }
+        return petType;
+    }
+
+    /**
+     * Return the <code>PetType</code> with the given name, or <code>null</code> if none found. A name missing from a
+     * snapshot older than the {@link #setNameMissReloadInterval name miss reload interval} reloads it once, so that a
+     * type added out of band is found without invalidating the cache by hand; since names come from clients, younger
+     * snapshots are not reloaded, so that unknown names cannot cause a reload per request.
+     */
+    public PetType findPetTypeByName(String name) throws DataAccessException {
+        ReferenceData<PetType> snapshot = petTypes();
+        PetType petType = snapshot.byName.get(name);
+        if (petType == null && snapshot.age() >= this.nameMissReloadInterval) {
+            evictIfCurrent(petTypesCache(), snapshot);
+            petType = petTypes().byName.get(name);
+        }
+        return petType;
+    }
+
+    /**
+     * Return all <code>Specialty</code>s, ordered by name.
+     */
+    public Collection<Specialty> getSpecialties() throws DataAccessException {
+        return specialties().all;
+    }
+
+    /**
+     * Return the <code>Specialty</code> with the given id. An id missing from the snapshot reloads it once, so that a
+     * specialty added out of band and already given to a vet does not fail the vet list.
+     *
+     * @throws ObjectRetrievalFailureException if not found after the reload
+     */
+    public Specialty getSpecialty(int id) throws DataAccessException {
+        ReferenceData<Specialty> snapshot = specialties();
+        Specialty specialty = snapshot.byId.findById(id);
+        if (specialty == null) {
+            evictIfCurrent(specialtiesCache(), snapshot);
+            specialty = specialties().byId.getById(id);
+        }
+        return specialty;
+    }
+
+    /**
+     * Return the <code>Specialty</code> with the given name, or <code>null</code> if none found.
+     */
+    public Specialty findSpecialtyByName(String name) throws DataAccessException {
+        return specialties().byName.get(name);
+    }
+
+    /**
+     * Drop the cached <code>PetType</code>s; they are reloaded on next access.
+     */
+    @ManagedOperation
+    public void invalidatePetTypes() {
+        petTypesCache().evict(SimpleKey.EMPTY);
+    }
+
+    /**
+     * Drop the cached <code>Specialty</code>s; they are reloaded on next access.
+     */
+    @ManagedOperation
+    public void invalidateSpecialties() {
+        specialtiesCache().evict(SimpleKey.EMPTY);
+    }
+
+    /**
+     * Drop all cached reference data.
+     */
+    @ManagedOperation
+    public void invalidate() {
+        invalidatePetTypes();
+        invalidateSpecialties();
+    }
+
+    @ManagedAttribute
+    public long getHitCount() {
+        return this.hitCount.sum();
+    }
+
+    @ManagedAttribute
+    public long getMissCount() {
+        return this.missCount.sum();
+    }
+
+    @ManagedOperation
+    public void resetStatistics() {
+        this.hitCount.reset();
+        this.missCount.reset();
+    }
+
+    private ReferenceData<PetType> petTypes() {
+        return referenceData(petTypesCache(),
+            () -> new ReferenceData<>(this.petRepository.getObject().findPetTypes(), PetType.class));
+    }
+
+    private ReferenceData<Specialty> specialties() {
+        return referenceData(specialtiesCache(),
+            () -> new ReferenceData<>(this.vetRepository.getObject().findSpecialties(), Specialty.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends NamedEntity> ReferenceData<T> referenceData(Cache cache, Supplier<ReferenceData<T>> loader) {
+        Cache.ValueWrapper cached = cache.get(SimpleKey.EMPTY);
+        if (cached != null) {
+            this.hitCount.increment();
+            return (ReferenceData<T>) cached.get();
+        }
+        try {
+            return cache.get(SimpleKey.EMPTY, () -> {
+                this.missCount.increment();
+                TransactionTemplate transaction = loadTransaction();
+                return (transaction != null ? transaction.execute(status -> loader.get()) : loader.get());
+            });
+        } catch (Cache.ValueRetrievalException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw ex;
+        }
+    }
+
+    private TransactionTemplate loadTransaction() {
+        TransactionTemplate transaction = this.loadTransaction;
+        if (transaction == null) {
+            PlatformTransactionManager transactionManager =
+                (this.transactionManager != null ? this.transactionManager.getIfAvailable() : null);
+            if (transactionManager == null) {
+                return null;
+            }
+            transaction = new TransactionTemplate(transactionManager);
+            transaction.setReadOnly(true);
+            this.loadTransaction = transaction;
+        }
+        return transaction;
+    }
+
+    /**
+     * Evict the given snapshot unless another thread has already replaced it, so that concurrent misses on the same
+     * snapshot cause a single reload.
+     */
+    private void evictIfCurrent(Cache cache, ReferenceData<?> snapshot) {
+        synchronized (snapshot) {
+            Cache.ValueWrapper cached = cache.get(SimpleKey.EMPTY);
+            if (cached != null && cached.get() == snapshot) {
+                cache.evict(SimpleKey.EMPTY);
+            }
+        }
+    }
+
+    private Cache petTypesCache() {
+        Cache cache = this.petTypes;
+        if (cache == null) {
+            synchronized (this) {
+                if (this.petTypes == null) {
+                    this.petTypes = cache(ClinicCacheManager.PET_TYPES);
+                }
+                cache = this.petTypes;
+            }
+        }
+        return cache;
+    }
+
+    private Cache specialtiesCache() {
+        Cache cache = this.specialties;
+        if (cache == null) {
+            synchronized (this) {
+                if (this.specialties == null) {
+                    this.specialties = cache(ClinicCacheManager.SPECIALTIES);
+                }
+                cache = this.specialties;
+            }
+        }
+        return cache;
+    }
+
+    private Cache cache(String name) {
+        CacheManager cacheManager = (this.cacheManager != null ? this.cacheManager.getIfAvailable() : null);
+        Cache cache = (cacheManager != null ? cacheManager.getCache(name) : null);
+        return (cache != null ? cache : new ConcurrentMapCache(name, false));
+    }
+
+    /**
+     * Immutable snapshot of one kind of reference data.
+     */
+    private static final class ReferenceData<T extends NamedEntity> {
+
+        private final List<T> all;
+
+        private final EntityIndex<T> byId;
+
+        private final Map<String, T> byName;
+
+        private final long loadTime = System.nanoTime();
+
+        private ReferenceData(Collection<T> entities, Class<T> entityClass) {
+            this.all = Collections.unmodifiableList(new ArrayList<>(entities));
+            this.byId = EntityIndex.of(this.all, entityClass);
+            Map<String, T> byName = new HashMap<>();
+            for (T entity : this.all) {
+                byName.putIfAbsent(entity.getName(), entity);
+            }
+            this.byName = byName;
+        }
+
+        private long age() {
+            return System.nanoTime() - this.loadTime;
+        }
+    }
+
+}
@@ -16,8 +16,10 @@
 package org.springframework.samples.petclinic.repository;
 
 import java.util.Collection;
+import java.util.List;
 
 import org.springframework.dao.DataAccessException;
+import org.springframework.samples.petclinic.model.Specialty;
 import org.springframework.samples.petclinic.model.Vet;
 
 /**
@@ -38,5 +40,11 @@ public interface VetRepository {
      */
     Collection<Vet> findAll() throws DataAccessException;
 
+    /**
+     * Retrieve all <code>Specialty</code>s from the data store.
+     *
+     * @return a <code>Collection</code> of <code>Specialty</code>s
+     */
+    List<Specialty> findSpecialties() throws DataAccessException;
 
 }
@@ -15,6 +15,7 @@
  */
 package org.springframework.samples.petclinic.repository;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.dao.DataAccessException;
@@ -40,6 +41,14 @@ public interface VisitRepository {
      */
     void save(Visit visit) throws DataAccessException;
 
+    /**
+     * Save several <code>Visit</code>s to the data store in batches, setting the id of each new visit.
+     *
+     * @param visits the <code>Visit</code>s to save
+     * @see #save(Visit)
+     */
+    void saveAll(Collection<Visit> visits) throws DataAccessException;
+
     List<Visit> findByPetId(Integer petId);
 
 }
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.repository.jdbc;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.samples.petclinic.model.BaseEntity;
+
+/**
+ * Inserts new entities with JDBC batches on a single prepared statement, setting the generated id of each entity
+ * after every batch.
+ */
+class JdbcBatchInsert<T extends BaseEntity> {
+
+    /**
+     * Sets the parameters of the insert statement from one entity.
+     */
+    @FunctionalInterface
+    interface ParameterSetter<T> {
+
+        void setValues(PreparedStatement ps, T entity) throws SQLException;
+    }
+
+    private final String sql;
+
+    private final ParameterSetter<T> parameterSetter;
+
+    private final int batchSize;
+
+    JdbcBatchInsert(String sql, ParameterSetter<T> parameterSetter, int batchSize) {
+        this.sql = sql;
+        this.parameterSetter = parameterSetter;
+        this.batchSize = batchSize;
+    }
+
+    void insert(JdbcOperations jdbcOperations, Collection<? extends T> entities) throws DataAccessException {
+        if (entities.isEmpty()) {
+            return;
+        }
+        jdbcOperations.execute(
+            con -> con.prepareStatement(this.sql, new String[]{"id"}),
+            (PreparedStatement ps) -> {
+                List<T> batch = new ArrayList<>(Math.min(entities.size(), this.batchSize));
+                for (T entity : entities) {
+                    this.parameterSetter.setValues(ps, entity);
+                    ps.addBatch();
+                    batch.add(entity);
+                    if (batch.size() == this.batchSize) {
+                        executeBatch(ps, batch);
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    executeBatch(ps, batch);
+                }
+                return null;
+            });
+    }
+
+    private static <T extends BaseEntity> void executeBatch(PreparedStatement ps, List<T> batch) throws SQLException {
+        ps.executeBatch();
+        try (ResultSet keys = ps.getGeneratedKeys()) {
+            for (T entity : batch) {
+                if (!keys.next()) {
+                    throw new DataRetrievalFailureException("Missing generated key for batch-inserted " +
+                        entity.getClass().getSimpleName());
+                }
+                entity.setId(keys.getInt(1));
+            }
+        }
+        batch.clear();
+    }
+
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.repository.jdbc;
+
+import javax.sql.DataSource;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.samples.petclinic.repository.OwnerExportRepository;
+
+/**
+ * JDBC implementation of the {@link OwnerExportRepository} interface, ordering the rows by owner id. It is used by
+ * every persistence profile, the JPA ones included, so it is declared by the business configuration rather than
+ * scanned with the JDBC repositories.
+ */
+public class JdbcOwnerExportRepositoryImpl implements OwnerExportRepository {
+
+    private static final String EXPORT_SQL =
+        "SELECT owners.id AS owner_id, owners.first_name, owners.last_name, owners.address, owners.city, owners.telephone, " +
+            "pets.id AS pet_id, pets.name AS pet_name, pets.birth_date, types.name AS type_name, " +
+            "visits.id AS visit_id, visits.visit_date, visits.description " +
+            "FROM owners LEFT OUTER JOIN pets ON pets.owner_id = owners.id " +
+            "LEFT OUTER JOIN types ON pets.type_id = types.id " +
+            "LEFT OUTER JOIN visits ON visits.pet_id = pets.id " +
+            "ORDER BY owners.id, pets.id, visits.id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @param fetchSize number of rows fetched per round trip (MySQL only streams with {@link Integer#MIN_VALUE})
+     */
+    public JdbcOwnerExportRepositoryImpl(DataSource dataSource, int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+    }
+
+    @Override
+    public void exportRows(RowCallbackHandler rowHandler) throws DataAccessException {
+        this.jdbcTemplate.query(EXPORT_SQL, rowHandler);
+    }
+
+}
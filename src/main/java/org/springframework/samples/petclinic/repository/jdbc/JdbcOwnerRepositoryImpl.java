@@ -15,8 +15,12 @@
  */
 package org.springframework.samples.petclinic.repository.jdbc;
 
+import java.sql.Date;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -31,12 +35,17 @@ import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
 import org.springframework.orm.ObjectRetrievalFailureException;
 import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.OwnerSummary;
+import org.springframework.samples.petclinic.model.OwnerSummaryPage;
 import org.springframework.samples.petclinic.model.Pet;
 import org.springframework.samples.petclinic.model.PetType;
 import org.springframework.samples.petclinic.model.Visit;
+import org.springframework.samples.petclinic.repository.BulkWrites;
 import org.springframework.samples.petclinic.repository.OwnerRepository;
-import org.springframework.samples.petclinic.util.EntityUtils;
+import org.springframework.samples.petclinic.repository.OwnerSummaryRows;
+import org.springframework.samples.petclinic.repository.ReferenceDataCache;
 import org.springframework.stereotype.Repository;
+import org.springframework.util.Assert;
 
 /**
  * A simple JDBC-based implementation of the {@link OwnerRepository} interface.
@@ -52,12 +61,24 @@ import org.springframework.stereotype.Repository;
 @Repository
 public class JdbcOwnerRepositoryImpl implements OwnerRepository {
 
+    /**
+     * Maximum number of owner ids bound into a single <code>IN (...)</code> clause; keeps the statement well below the
+     * parameter limits of the supported databases.
+     */
+    private static final int OWNER_ID_CHUNK_SIZE = 500;
+
     private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
 
     private SimpleJdbcInsert insertOwner;
 
+    private JdbcBatchInsert<Owner> batchInsertOwner;
+
+    private JdbcBatchInsert<Pet> batchInsertPet;
+
+    private ReferenceDataCache referenceDataCache;
+
     @Autowired
-    public JdbcOwnerRepositoryImpl(DataSource dataSource) {
+    public JdbcOwnerRepositoryImpl(DataSource dataSource, ReferenceDataCache referenceDataCache, BulkWrites bulkWrites) {
 
         this.insertOwner = new SimpleJdbcInsert(dataSource)
             .withTableName("owners")
@@ -65,6 +86,28 @@ public class JdbcOwnerRepositoryImpl implements OwnerRepository {
 
         this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
 
+        this.batchInsertOwner = new JdbcBatchInsert<>(
+            "INSERT INTO owners (first_name, last_name, address, city, telephone) VALUES (?, ?, ?, ?, ?)",
+            (ps, owner) -> {
+                ps.setString(1, owner.getFirstName());
+                ps.setString(2, owner.getLastName());
+                ps.setString(3, owner.getAddress());
+                ps.setString(4, owner.getCity());
+                ps.setString(5, owner.getTelephone());
+            },
+            bulkWrites.getBatchSize());
+
+        this.batchInsertPet = new JdbcBatchInsert<>(
+            "INSERT INTO pets (name, birth_date, type_id, owner_id) VALUES (?, ?, ?, ?)",
+            (ps, pet) -> {
+                ps.setString(1, pet.getName());
+                ps.setDate(2, pet.getBirthDate() != null ? Date.valueOf(pet.getBirthDate()) : null);
+                ps.setInt(3, pet.getType().getId());
+                ps.setInt(4, pet.getOwner().getId());
+            },
+            bulkWrites.getBatchSize());
+
+        this.referenceDataCache = referenceDataCache;
     }
 
 
@@ -86,6 +129,51 @@ public class JdbcOwnerRepositoryImpl implements OwnerRepository {
         return owners;
     }
 
+    @Override
+    public OwnerSummaryPage findSummariesByLastName(String lastName, int page, int size) throws DataAccessException {
+        Map<String, Object> params = new HashMap<>();
+        params.put("lastName", lastName + "%");
+        params.put("offset", OwnerSummaryRows.offset(page, size));
+        params.put("limit", size + 1);
+        return findSummaryPage(size,
+            "SELECT id, first_name, last_name, address, city, telephone FROM owners WHERE last_name like :lastName " +
+                "ORDER BY last_name, id LIMIT :limit OFFSET :offset",
+            params);
+    }
+
+    @Override
+    public OwnerSummaryPage findSummariesByLastNameAfter(String lastName, String afterLastName, int afterId, int size)
+        throws DataAccessException {
+        Map<String, Object> params = new HashMap<>();
+        params.put("lastName", lastName + "%");
+        params.put("afterLastName", afterLastName);
+        params.put("afterId", afterId);
+        params.put("limit", size + 1);
+        return findSummaryPage(size,
+            "SELECT id, first_name, last_name, address, city, telephone FROM owners WHERE last_name like :lastName " +
+                "AND (last_name > :afterLastName OR (last_name = :afterLastName AND id > :afterId)) " +
+                "ORDER BY last_name, id LIMIT :limit",
+            params);
+    }
+
+    /**
+     * Runs the given owners query, limited to one owner more than the page size, then reads the pet names of the
+     * returned owners only. Joining pets in the first query would make the row limit apply to pets rather than owners.
+     */
+    private OwnerSummaryPage findSummaryPage(int size, String ownersSql, Map<String, Object> params) {
+        List<Object[]> ownerRows = this.namedParameterJdbcTemplate.query(ownersSql, params,
+            (rs, rowNum) -> new Object[]{rs.getInt("id"), rs.getString("first_name"), rs.getString("last_name"),
+                rs.getString("address"), rs.getString("city"), rs.getString("telephone")});
+        if (ownerRows.isEmpty()) {
+            return OwnerSummaryRows.toPage(Collections.emptyList(), size);
+        }
+        List<Object[]> petNameRows = this.namedParameterJdbcTemplate.query(
+            "SELECT owner_id, name FROM pets WHERE owner_id IN (:ids) ORDER BY name",
+            Collections.singletonMap("ids", OwnerSummaryRows.ownerIds(ownerRows)),
+            (rs, rowNum) -> new Object[]{rs.getInt("owner_id"), rs.getString("name")});
+        return OwnerSummaryRows.toPage(OwnerSummaryRows.toSummaries(ownerRows, petNameRows), size);
+    }
+
     /**
      * Loads the {@link Owner} with the supplied <code>id</code>; also loads the {@link Pet Pets} and {@link Visit Visits}
      * for the corresponding owner, if not already loaded.
@@ -109,18 +197,7 @@ public class JdbcOwnerRepositoryImpl implements OwnerRepository {
     }
 
     public void loadPetsAndVisits(final Owner owner) {
-        Map<String, Object> params = new HashMap<>();
-        params.put("id", owner.getId());
-        final List<JdbcPet> pets = this.namedParameterJdbcTemplate.query(
-            "SELECT pets.id, name, birth_date, type_id, owner_id, visits.id as visit_id, visit_date, description, pet_id FROM pets LEFT OUTER JOIN visits ON pets.id = pet_id WHERE owner_id=:id ORDER BY pet_id",
-            params,
-            new JdbcPetVisitExtractor()
-        );
-        Collection<PetType> petTypes = getPetTypes();
-        for (JdbcPet pet : pets) {
-            pet.setType(EntityUtils.getById(petTypes, PetType.class, pet.getTypeId()));
-            owner.addPet(pet);
-        }
+        loadOwnersPetsAndVisits(Collections.singletonList(owner));
     }
 
     @Override
@@ -137,21 +214,55 @@ public class JdbcOwnerRepositoryImpl implements OwnerRepository {
         }
     }
 
+    /**
+     * Inserts the owners, then all their pets, each with {@link BulkWrites JDBC batches}.
+     */
+    @Override
+    public void saveAll(Collection<Owner> owners) throws DataAccessException {
+        List<Pet> pets = new ArrayList<>();
+        for (Owner owner : owners) {
+            Assert.isTrue(owner.isNew(), "Only new owners can be saved in batches");
+            pets.addAll(owner.getPets());
+        }
+        this.batchInsertOwner.insert(this.namedParameterJdbcTemplate.getJdbcOperations(), owners);
+        this.batchInsertPet.insert(this.namedParameterJdbcTemplate.getJdbcOperations(), pets);
+    }
+
     public Collection<PetType> getPetTypes() throws DataAccessException {
-        return this.namedParameterJdbcTemplate.query(
-            "SELECT id, name FROM types ORDER BY name", new HashMap<String, Object>(),
-            BeanPropertyRowMapper.newInstance(PetType.class));
+        return this.referenceDataCache.getPetTypes();
     }
 
     /**
      * Loads the {@link Pet} and {@link Visit} data for the supplied {@link List} of {@link Owner Owners}.
+     * <p>
+     * Pets and visits are fetched for all owners at once with <code>IN (...)</code> queries of at most
+     * {@link #OWNER_ID_CHUNK_SIZE} owner ids each, and the pet types are resolved through the
+     * {@link ReferenceDataCache}. The results are then attached to their owners in memory, so a search returning N
+     * owners costs a handful of queries instead of 2N+1.
      *
      * @param owners the list of owners for whom the pet and visit data should be loaded
-     * @see #loadPetsAndVisits(Owner)
      */
     private void loadOwnersPetsAndVisits(List<Owner> owners) {
+        if (owners.isEmpty()) {
+            return;
+        }
+        Map<Integer, Owner> ownersById = new LinkedHashMap<>();
         for (Owner owner : owners) {
-            loadPetsAndVisits(owner);
+            ownersById.put(owner.getId(), owner);
+        }
+        List<Integer> ownerIds = new ArrayList<>(ownersById.keySet());
+        for (int from = 0; from < ownerIds.size(); from += OWNER_ID_CHUNK_SIZE) {
+            Map<String, Object> params = new HashMap<>();
+            params.put("ids", ownerIds.subList(from, Math.min(from + OWNER_ID_CHUNK_SIZE, ownerIds.size())));
+            final List<JdbcPet> pets = this.namedParameterJdbcTemplate.query(
+                JdbcPetVisitExtractor.SELECT_PETS_WITH_VISITS + "WHERE owner_id IN (:ids) ORDER BY pets.id",
+                params,
+                new JdbcPetVisitExtractor()
+            );
+            for (JdbcPet pet : pets) {
+                pet.setType(this.referenceDataCache.getPetType(pet.getTypeId()));
+                ownersById.get(pet.getOwnerId()).addPet(pet);
+            }
         }
     }
 
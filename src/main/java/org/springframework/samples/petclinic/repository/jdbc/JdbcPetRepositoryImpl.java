@@ -23,7 +23,7 @@ import javax.sql.DataSource;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataAccessException;
-import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.support.DataAccessUtils;
 import org.springframework.jdbc.core.BeanPropertyRowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
@@ -32,10 +32,8 @@ import org.springframework.orm.ObjectRetrievalFailureException;
 import org.springframework.samples.petclinic.model.Owner;
 import org.springframework.samples.petclinic.model.Pet;
 import org.springframework.samples.petclinic.model.PetType;
-import org.springframework.samples.petclinic.repository.OwnerRepository;
 import org.springframework.samples.petclinic.repository.PetRepository;
-import org.springframework.samples.petclinic.repository.VisitRepository;
-import org.springframework.samples.petclinic.util.EntityUtils;
+import org.springframework.samples.petclinic.repository.ReferenceDataCache;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -53,21 +51,18 @@ public class JdbcPetRepositoryImpl implements PetRepository {
 
     private SimpleJdbcInsert insertPet;
 
-    private OwnerRepository ownerRepository;
-
-    private VisitRepository visitRepository;
+    private ReferenceDataCache referenceDataCache;
 
 
     @Autowired
-    public JdbcPetRepositoryImpl(DataSource dataSource, OwnerRepository ownerRepository, VisitRepository visitRepository) {
+    public JdbcPetRepositoryImpl(DataSource dataSource, ReferenceDataCache referenceDataCache) {
         this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
 
         this.insertPet = new SimpleJdbcInsert(dataSource)
             .withTableName("pets")
             .usingGeneratedKeyColumns("id");
 
-        this.ownerRepository = ownerRepository;
-        this.visitRepository = visitRepository;
+        this.referenceDataCache = referenceDataCache;
     }
 
     @Override
@@ -79,18 +74,34 @@ public class JdbcPetRepositoryImpl implements PetRepository {
             BeanPropertyRowMapper.newInstance(PetType.class));
     }
 
+    /**
+     * Loads the pet and its visits with one outer join, then the owner's own columns with a second query; the pet
+     * type comes from the {@link ReferenceDataCache}. The owner's other pets are not loaded, so the returned pet's
+     * owner only holds this pet.
+     */
     @Override
     public Pet findById(int id) throws DataAccessException {
-        Integer ownerId;
-        try {
-            Map<String, Object> params = new HashMap<>();
-            params.put("id", id);
-            ownerId = this.namedParameterJdbcTemplate.queryForObject("SELECT owner_id FROM pets WHERE id=:id", params, Integer.class);
-        } catch (EmptyResultDataAccessException ex) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("id", id);
+        List<JdbcPet> pets = this.namedParameterJdbcTemplate.query(
+            JdbcPetVisitExtractor.SELECT_PETS_WITH_VISITS + "WHERE pets.id=:id",
+            params,
+            new JdbcPetVisitExtractor()
+        );
+        JdbcPet pet = DataAccessUtils.singleResult(pets);
+        if (pet == null) {
             throw new ObjectRetrievalFailureException(Pet.class, id);
         }
-        Owner owner = this.ownerRepository.findById(ownerId);
-        return EntityUtils.getById(owner.getPets(), Pet.class, id);
+
+        params.put("id", pet.getOwnerId());
+        Owner owner = this.namedParameterJdbcTemplate.queryForObject(
+            "SELECT id, first_name, last_name, address, city, telephone FROM owners WHERE id=:id",
+            params,
+            BeanPropertyRowMapper.newInstance(Owner.class)
+        );
+        owner.addPet(pet);
+        pet.setType(this.referenceDataCache.getPetType(pet.getTypeId()));
+        return pet;
     }
 
     @Override
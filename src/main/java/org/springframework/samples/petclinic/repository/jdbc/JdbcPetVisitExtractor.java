@@ -29,6 +29,14 @@ import java.sql.SQLException;
 public class JdbcPetVisitExtractor extends
     OneToManyResultSetExtractor<JdbcPet, Visit, Integer> {
 
+    /**
+     * Select clause reading pets and their visits in the shape expected by this extractor; callers append their own
+     * <code>WHERE</code> and <code>ORDER BY</code> clauses.
+     */
+    static final String SELECT_PETS_WITH_VISITS =
+        "SELECT pets.id, name, birth_date, type_id, owner_id, visits.id as visit_id, visit_date, description, pet_id " +
+            "FROM pets LEFT OUTER JOIN visits ON pets.id = pet_id ";
+
     public JdbcPetVisitExtractor() {
         super(new JdbcPetRowMapper(), new JdbcVisitRowMapper());
     }
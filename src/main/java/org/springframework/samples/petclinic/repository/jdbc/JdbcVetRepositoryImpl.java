@@ -15,9 +15,6 @@
  */
 package org.springframework.samples.petclinic.repository.jdbc;
 
-import java.sql.ResultSet;
-import java.sql.SQLException;
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
@@ -27,8 +24,8 @@ import org.springframework.jdbc.core.BeanPropertyRowMapper;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.samples.petclinic.model.Specialty;
 import org.springframework.samples.petclinic.model.Vet;
+import org.springframework.samples.petclinic.repository.ReferenceDataCache;
 import org.springframework.samples.petclinic.repository.VetRepository;
-import org.springframework.samples.petclinic.util.EntityUtils;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -47,43 +44,34 @@ public class JdbcVetRepositoryImpl implements VetRepository {
 
     private JdbcTemplate jdbcTemplate;
 
+    private ReferenceDataCache referenceDataCache;
+
     @Autowired
-    public JdbcVetRepositoryImpl(JdbcTemplate jdbcTemplate) {
+    public JdbcVetRepositoryImpl(JdbcTemplate jdbcTemplate, ReferenceDataCache referenceDataCache) {
         this.jdbcTemplate = jdbcTemplate;
+        this.referenceDataCache = referenceDataCache;
     }
 
     /**
      * Refresh the cache of Vets that the ClinicService is holding.
+     * <p>
+     * Vets and their specialty ids are read with a single outer join and assembled by
+     * {@link JdbcVetSpecialtiesExtractor}, rather than with one <code>vet_specialties</code> query per vet. The
+     * specialties themselves come from the {@link ReferenceDataCache}.
      */
     @Override
     public Collection<Vet> findAll() throws DataAccessException {
-        List<Vet> vets = new ArrayList<>();
-        // Retrieve the list of all vets.
-        vets.addAll(this.jdbcTemplate.query(
-            "SELECT id, first_name, last_name FROM vets ORDER BY last_name,first_name",
-            BeanPropertyRowMapper.newInstance(Vet.class)));
+        return this.jdbcTemplate.query(
+            "SELECT vets.id AS vet_id, vets.first_name, vets.last_name, vet_specialties.specialty_id " +
+                "FROM vets LEFT OUTER JOIN vet_specialties ON vets.id = vet_specialties.vet_id " +
+                "ORDER BY vets.last_name, vets.first_name, vets.id",
+            new JdbcVetSpecialtiesExtractor(this.referenceDataCache));
+    }
 
-        // Retrieve the list of all possible specialties.
-        final List<Specialty> specialties = this.jdbcTemplate.query(
-            "SELECT id, name FROM specialties",
+    @Override
+    public List<Specialty> findSpecialties() throws DataAccessException {
+        return this.jdbcTemplate.query(
+            "SELECT id, name FROM specialties ORDER BY name",
             BeanPropertyRowMapper.newInstance(Specialty.class));
-
-        // Build each vet's list of specialties.
-        for (Vet vet : vets) {
-            final List<Integer> vetSpecialtiesIds = this.jdbcTemplate.query(
-                "SELECT specialty_id FROM vet_specialties WHERE vet_id=?",
-                new BeanPropertyRowMapper<Integer>() {
-                    @Override
-                    public Integer mapRow(ResultSet rs, int row) throws SQLException {
-                        return rs.getInt(1);
-                    }
-                },
-                vet.getId());
-            for (int specialtyId : vetSpecialtiesIds) {
-                Specialty specialty = EntityUtils.getById(specialties, Specialty.class, specialtyId);
-                vet.addSpecialty(specialty);
-            }
-        }
-        return vets;
     }
 }
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.repository.jdbc;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.samples.petclinic.model.Specialty;
+import org.springframework.samples.petclinic.model.Vet;
+import org.springframework.samples.petclinic.repository.ReferenceDataCache;
+
+/**
+ * {@link ResultSetExtractor} implementation building {@link Vet Vets} and their {@link Specialty Specialties} in a
+ * single pass over a <code>vets LEFT OUTER JOIN vet_specialties</code> result set.
+ * <p>
+ * Vets are keyed by id, so every vet appears once in the result (in row order). Specialties are resolved by id
+ * through the {@link ReferenceDataCache}, so each one is shared by all the vets having it.
+ */
+class JdbcVetSpecialtiesExtractor implements ResultSetExtractor<List<Vet>> {
+
+    private final ReferenceDataCache referenceDataCache;
+
+    JdbcVetSpecialtiesExtractor(ReferenceDataCache referenceDataCache) {
+        this.referenceDataCache = referenceDataCache;
+    }
+
+    @Override
+    public List<Vet> extractData(ResultSet rs) throws SQLException {
+        Map<Integer, Vet> vets = new LinkedHashMap<>();
+        while (rs.next()) {
+            int vetId = rs.getInt("vet_id");
+            Vet vet = vets.get(vetId);
+            if (vet == null) {
+                vet = new Vet();
+                vet.setId(vetId);
+                vet.setFirstName(rs.getString("first_name"));
+                vet.setLastName(rs.getString("last_name"));
+                vets.put(vetId, vet);
+            }
+            int specialtyId = rs.getInt("specialty_id");
+            if (!rs.wasNull()) {
+                vet.addSpecialty(this.referenceDataCache.getSpecialty(specialtyId));
+            }
+        }
+        return new ArrayList<>(vets.values());
+    }
+}
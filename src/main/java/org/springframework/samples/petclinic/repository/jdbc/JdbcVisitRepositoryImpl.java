@@ -20,12 +20,19 @@ import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.dao.support.DataAccessUtils;
 import org.springframework.samples.petclinic.model.Visit;
+import org.springframework.samples.petclinic.repository.BulkWrites;
+import org.springframework.samples.petclinic.repository.ReferenceDataCache;
 import org.springframework.samples.petclinic.repository.VisitRepository;
 import org.springframework.stereotype.Repository;
 
 import javax.sql.DataSource;
 
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -48,13 +55,28 @@ public class JdbcVisitRepositoryImpl implements VisitRepository {
 
     private SimpleJdbcInsert insertVisit;
 
+    private JdbcBatchInsert<Visit> batchInsertVisit;
+
+    private ReferenceDataCache referenceDataCache;
+
     @Autowired
-    public JdbcVisitRepositoryImpl(DataSource dataSource) {
+    public JdbcVisitRepositoryImpl(DataSource dataSource, ReferenceDataCache referenceDataCache, BulkWrites bulkWrites) {
         this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
 
         this.insertVisit = new SimpleJdbcInsert(dataSource)
             .withTableName("visits")
             .usingGeneratedKeyColumns("id");
+
+        this.batchInsertVisit = new JdbcBatchInsert<>(
+            "INSERT INTO visits (pet_id, visit_date, description) VALUES (?, ?, ?)",
+            (ps, visit) -> {
+                ps.setInt(1, visit.getPet().getId());
+                ps.setDate(2, visit.getDate() != null ? Date.valueOf(visit.getDate()) : null);
+                ps.setString(3, visit.getDescription());
+            },
+            bulkWrites.getBatchSize());
+
+        this.referenceDataCache = referenceDataCache;
     }
 
 
@@ -70,6 +92,20 @@ public class JdbcVisitRepositoryImpl implements VisitRepository {
     }
 
 
+    /**
+     * Inserts the visits with {@link BulkWrites JDBC batches} on a single prepared statement, reading the
+     * generated ids back after each batch.
+     */
+    @Override
+    public void saveAll(Collection<Visit> visits) throws DataAccessException {
+        for (Visit visit : visits) {
+            if (!visit.isNew()) {
+                throw new UnsupportedOperationException("Visit update not supported");
+            }
+        }
+        this.batchInsertVisit.insert(this.jdbcTemplate.getJdbcOperations(), visits);
+    }
+
     /**
      * Creates a {@link MapSqlParameterSource} based on data values from the supplied {@link Visit} instance.
      */
@@ -81,24 +117,23 @@ public class JdbcVisitRepositoryImpl implements VisitRepository {
             .addValue("pet_id", visit.getPet().getId());
     }
 
+    /**
+     * Reads the pet and its visits with a single outer join; the visits refer to a pet carrying its type and owner id
+     * but no owner. An unknown pet has no visits.
+     */
     @Override
     public List<Visit> findByPetId(Integer petId) {
         Map<String, Object> params = new HashMap<>();
         params.put("id", petId);
-        JdbcPet pet = this.jdbcTemplate.queryForObject(
-                "SELECT id, name, birth_date, type_id, owner_id FROM pets WHERE id=:id",
-                params,
-                new JdbcPetRowMapper());
-
-        List<Visit> visits = this.jdbcTemplate.query(
-            "SELECT id as visit_id, visit_date, description FROM visits WHERE pet_id=:id",
-            params, new JdbcVisitRowMapper());
-
-        for (Visit visit: visits) {
-            visit.setPet(pet);
+        JdbcPet pet = DataAccessUtils.singleResult(this.jdbcTemplate.query(
+            JdbcPetVisitExtractor.SELECT_PETS_WITH_VISITS + "WHERE pets.id=:id",
+            params,
+            new JdbcPetVisitExtractor()));
+        if (pet == null) {
+            return Collections.emptyList();
         }
-
-        return visits;
+        pet.setType(this.referenceDataCache.getPetType(pet.getTypeId()));
+        return new ArrayList<>(pet.getVisits());
     }
 
 }
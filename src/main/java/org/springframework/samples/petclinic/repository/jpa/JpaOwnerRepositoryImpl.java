@@ -16,14 +16,20 @@
 package org.springframework.samples.petclinic.repository.jpa;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.persistence.Query;
 
-import org.springframework.orm.hibernate5.support.OpenSessionInViewFilter;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.OwnerSummary;
+import org.springframework.samples.petclinic.model.OwnerSummaryPage;
+import org.springframework.samples.petclinic.repository.BulkWrites;
 import org.springframework.samples.petclinic.repository.OwnerRepository;
+import org.springframework.samples.petclinic.repository.OwnerSummaryRows;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -38,32 +44,81 @@ import org.springframework.stereotype.Repository;
 @Repository
 public class JpaOwnerRepositoryImpl implements OwnerRepository {
 
+    /**
+     * Standard JPA hint loading the attributes of the given entity graph eagerly and the others lazily.
+     */
+    private static final String FETCH_GRAPH = "javax.persistence.fetchgraph";
+
     @PersistenceContext
     private EntityManager em;
 
+    private final BulkWrites bulkWrites;
+
+    @Autowired
+    public JpaOwnerRepositoryImpl(BulkWrites bulkWrites) {
+        this.bulkWrites = bulkWrites;
+    }
+
 
     /**
-     * Important: in the current version of this method, we load Owners with all their Pets and Visits while
-     * we do not need Visits at all and we only need one property from the Pet objects (the 'name' property).
-     * There are some ways to improve it such as:
-     * - creating a Ligtweight class (example here: https://community.jboss.org/wiki/LightweightClass)
-     * - Turning on lazy-loading and using {@link OpenSessionInViewFilter}
+     * Loads the owners with their pets through the {@link Owner#WITH_PETS} entity graph; the visits of the pets are
+     * lazy and are not loaded. The owners list uses the lightweight {@link #findSummariesByLastName} instead.
      */
     @SuppressWarnings("unchecked")
     public Collection<Owner> findByLastName(String lastName) {
-        // using 'join fetch' because a single query should load both owners and pets
-        // using 'left join fetch' because it might happen that an owner does not have pets yet
-        Query query = this.em.createQuery("SELECT DISTINCT owner FROM Owner owner left join fetch owner.pets WHERE owner.lastName LIKE :lastName");
+        Query query = this.em.createQuery("SELECT DISTINCT owner FROM Owner owner WHERE owner.lastName LIKE :lastName");
         query.setParameter("lastName", lastName + "%");
+        query.setHint(FETCH_GRAPH, this.em.getEntityGraph(Owner.WITH_PETS));
         return query.getResultList();
     }
 
+    @Override
+    public OwnerSummaryPage findSummariesByLastName(String lastName, int page, int size) {
+        Query query = this.em.createQuery("SELECT owner.id, owner.firstName, owner.lastName, owner.address, owner.city, owner.telephone " +
+            "FROM Owner owner WHERE owner.lastName LIKE :lastName ORDER BY owner.lastName, owner.id");
+        query.setParameter("lastName", lastName + "%");
+        query.setFirstResult(OwnerSummaryRows.offset(page, size));
+        query.setMaxResults(size + 1);
+        return findSummaryPage(query, size);
+    }
+
+    @Override
+    public OwnerSummaryPage findSummariesByLastNameAfter(String lastName, String afterLastName, int afterId, int size) {
+        Query query = this.em.createQuery("SELECT owner.id, owner.firstName, owner.lastName, owner.address, owner.city, owner.telephone " +
+            "FROM Owner owner WHERE owner.lastName LIKE :lastName " +
+            "AND (owner.lastName > :afterLastName OR (owner.lastName = :afterLastName AND owner.id > :afterId)) " +
+            "ORDER BY owner.lastName, owner.id");
+        query.setParameter("lastName", lastName + "%");
+        query.setParameter("afterLastName", afterLastName);
+        query.setParameter("afterId", afterId);
+        query.setMaxResults(size + 1);
+        return findSummaryPage(query, size);
+    }
+
+    /**
+     * Runs the given owners query, limited to one owner more than the page size, then reads the pet names of the
+     * returned owners only.
+     */
+    @SuppressWarnings("unchecked")
+    private OwnerSummaryPage findSummaryPage(Query ownersQuery, int size) {
+        List<Object[]> ownerRows = ownersQuery.getResultList();
+        if (ownerRows.isEmpty()) {
+            return OwnerSummaryRows.toPage(Collections.emptyList(), size);
+        }
+        Query query = this.em.createQuery("SELECT pet.owner.id, pet.name FROM Pet pet WHERE pet.owner.id IN :ids ORDER BY pet.name");
+        query.setParameter("ids", OwnerSummaryRows.ownerIds(ownerRows));
+        return OwnerSummaryRows.toPage(OwnerSummaryRows.toSummaries(ownerRows, query.getResultList()), size);
+    }
+
+    /**
+     * Loads the owner with its pets and their visits, all rendered by the owner details page, in a single query
+     * through the {@link Owner#WITH_PETS_AND_VISITS} entity graph.
+     */
     @Override
     public Owner findById(int id) {
-        // using 'join fetch' because a single query should load both owners and pets
-        // using 'left join fetch' because it might happen that an owner does not have pets yet
-        Query query = this.em.createQuery("SELECT owner FROM Owner owner left join fetch owner.pets WHERE owner.id =:id");
+        Query query = this.em.createQuery("SELECT owner FROM Owner owner WHERE owner.id =:id");
         query.setParameter("id", id);
+        query.setHint(FETCH_GRAPH, this.em.getEntityGraph(Owner.WITH_PETS_AND_VISITS));
         return (Owner) query.getSingleResult();
     }
 
@@ -78,4 +133,13 @@ public class JpaOwnerRepositoryImpl implements OwnerRepository {
 
     }
 
+    /**
+     * Persists the owners, and their pets by cascade, in {@link BulkWrites batches}, clearing the persistence context
+     * after each one.
+     */
+    @Override
+    public void saveAll(Collection<Owner> owners) {
+        this.bulkWrites.saveAll(this.em, owners, this.em::persist);
+    }
+
 }
@@ -15,11 +15,14 @@
  */
 package org.springframework.samples.petclinic.repository.jpa;
 
+import java.util.Collections;
 import java.util.List;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 
+import org.hibernate.jpa.QueryHints;
+
 import org.springframework.samples.petclinic.model.Pet;
 import org.springframework.samples.petclinic.model.PetType;
 import org.springframework.samples.petclinic.repository.PetRepository;
@@ -37,18 +40,38 @@ import org.springframework.stereotype.Repository;
 @Repository
 public class JpaPetRepositoryImpl implements PetRepository {
 
+    /**
+     * Standard JPA hint loading the attributes of the given entity graph eagerly and the others lazily.
+     */
+    private static final String FETCH_GRAPH = "javax.persistence.fetchgraph";
+
     @PersistenceContext
     private EntityManager em;
 
+    /**
+     * Reads the pet types through the query cache, the types themselves being in the second-level cache.
+     */
     @Override
     @SuppressWarnings("unchecked")
     public List<PetType> findPetTypes() {
-        return this.em.createQuery("SELECT ptype FROM PetType ptype ORDER BY ptype.name").getResultList();
+        return this.em.createQuery("SELECT ptype FROM PetType ptype ORDER BY ptype.name")
+            .setHint(QueryHints.HINT_CACHEABLE, true)
+            .getResultList();
     }
 
+    /**
+     * Loads the pet with its visits, rendered by the visit form, through the {@link Pet#WITH_VISITS} entity graph;
+     * the pets of its owner stay lazy. A pet found in the second-level cache is returned without applying the graph,
+     * its visits then being read here, from the collection cache.
+     */
     @Override
     public Pet findById(int id) {
-        return this.em.find(Pet.class, id);
+        Pet pet = this.em.find(Pet.class, id,
+            Collections.singletonMap(FETCH_GRAPH, this.em.getEntityGraph(Pet.WITH_VISITS)));
+        if (pet != null) {
+            pet.getVisits();
+        }
+        return pet;
     }
 
     @Override
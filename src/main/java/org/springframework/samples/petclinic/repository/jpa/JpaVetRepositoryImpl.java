@@ -15,13 +15,17 @@
  */
 package org.springframework.samples.petclinic.repository.jpa;
 
+import org.springframework.samples.petclinic.model.Specialty;
 import org.springframework.samples.petclinic.model.Vet;
 import org.springframework.samples.petclinic.repository.VetRepository;
 import org.springframework.stereotype.Repository;
 
+import org.hibernate.jpa.QueryHints;
+
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import java.util.Collection;
+import java.util.List;
 
 /**
  * JPA implementation of the {@link VetRepository} interface.
@@ -39,10 +43,21 @@ public class JpaVetRepositoryImpl implements VetRepository {
     private EntityManager em;
 
 
+    /**
+     * Reads the vets through the query cache, the vets and their specialties being in the second-level cache.
+     */
     @Override
     @SuppressWarnings("unchecked")
     public Collection<Vet> findAll() {
-        return this.em.createQuery("SELECT distinct vet FROM Vet vet left join fetch vet.specialties ORDER BY vet.lastName, vet.firstName").getResultList();
+        return this.em.createQuery("SELECT distinct vet FROM Vet vet left join fetch vet.specialties ORDER BY vet.lastName, vet.firstName")
+            .setHint(QueryHints.HINT_CACHEABLE, true)
+            .getResultList();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Specialty> findSpecialties() {
+        return this.em.createQuery("SELECT specialty FROM Specialty specialty ORDER BY specialty.name").getResultList();
     }
 
 }
@@ -15,13 +15,16 @@
  */
 package org.springframework.samples.petclinic.repository.jpa;
 
+import java.util.Collection;
 import java.util.List;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.persistence.Query;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.samples.petclinic.model.Visit;
+import org.springframework.samples.petclinic.repository.BulkWrites;
 import org.springframework.samples.petclinic.repository.VisitRepository;
 import org.springframework.stereotype.Repository;
 
@@ -42,6 +45,13 @@ public class JpaVisitRepositoryImpl implements VisitRepository {
     @PersistenceContext
     private EntityManager em;
 
+    private final BulkWrites bulkWrites;
+
+    @Autowired
+    public JpaVisitRepositoryImpl(BulkWrites bulkWrites) {
+        this.bulkWrites = bulkWrites;
+    }
+
 
     @Override
     public void save(Visit visit) {
@@ -53,10 +63,18 @@ public class JpaVisitRepositoryImpl implements VisitRepository {
     }
 
 
+    /**
+     * Saves the visits in {@link BulkWrites batches}, clearing the persistence context after each one.
+     */
+    @Override
+    public void saveAll(Collection<Visit> visits) {
+        this.bulkWrites.saveAll(this.em, visits, this::save);
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     public List<Visit> findByPetId(Integer petId) {
-        Query query = this.em.createQuery("SELECT v FROM Visit v where v.pet.id= :id");
+        Query query = this.em.createQuery("SELECT v FROM Visit v join fetch v.pet where v.pet.id= :id");
         query.setParameter("id", petId);
         return query.getResultList();
     }
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.repository.sharded;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.samples.petclinic.util.PooledDataSource;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * One database of a {@link Shards} set: the owners whose id falls on its {@link #getIndex index}, with their pets
+ * and visits, and a copy of the reference data.
+ * <p>
+ * Its {@link #getDataSource DataSource} hands out lazy connections, so that a transaction spanning all shards only
+ * takes a physical connection from the shards it uses.
+ * <p>
+ * New ids are taken from blocks of values reserved in its <code>id_generators</code> table, and spread so that an id
+ * designates its shard: value n of the shard of index i among N shards gives the id n * N + i. A block is reserved
+ * without holding any lock, the thread reserving it keeping its pool connection meanwhile: threads running out of
+ * the same block at once each reserve one, and the blocks that lose the race are dropped, leaving gaps in the ids.
+ */
+public final class Shard {
+
+    private final int index;
+
+    private final int count;
+
+    private final String name;
+
+    private final PooledDataSource pool;
+
+    private final DataSource dataSource;
+
+    private final DataSourceTransactionManager transactionManager;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate idBlockTransaction;
+
+    private final int idBlockSize;
+
+    private final AtomicReferenceArray<IdBlock> idBlocks = new AtomicReferenceArray<>(Table.values().length);
+
+    private final LongAdder useCount = new LongAdder();
+
+    Shard(int index, int count, String name, PooledDataSource pool, int idBlockSize) {
+        this.index = index;
+        this.count = count;
+        this.name = name;
+        this.pool = pool;
+        this.dataSource = new LazyConnectionDataSourceProxy(pool);
+        this.transactionManager = new DataSourceTransactionManager(this.dataSource);
+        this.jdbcTemplate = new JdbcTemplate(this.dataSource);
+        // reserves blocks in a transaction of its own, so that the row of id_generators is not locked until the
+        // transaction inserting the rows ends
+        this.idBlockTransaction = new TransactionTemplate(new DataSourceTransactionManager(pool));
+        this.idBlockTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.idBlockSize = idBlockSize;
+    }
+
+    /**
+     * Returns the position of this shard, from 0: the remainder of the division of the ids of its owners by the
+     * number of shards.
+     */
+    public int getIndex() {
+        return this.index;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public DataSource getDataSource() {
+        return this.dataSource;
+    }
+
+    public DataSourceTransactionManager getTransactionManager() {
+        return this.transactionManager;
+    }
+
+    public JdbcTemplate getJdbcTemplate() {
+        return this.jdbcTemplate;
+    }
+
+    /**
+     * Returns a new id for a row of the given table of this shard.
+     */
+    public int nextId(Table table) {
+        IdBlock block = this.idBlocks.get(table.ordinal());
+        while (true) {
+            if (block != null) {
+                int value = block.next.getAndIncrement();
+                if (value < block.end) {
+                    return value * this.count + this.index;
+                }
+            }
+            IdBlock reserved = reserveIdBlock(table);
+            if (this.idBlocks.compareAndSet(table.ordinal(), block, reserved)) {
+                block = reserved;
+            } else {
+                block = this.idBlocks.get(table.ordinal());
+            }
+        }
+    }
+
+    /**
+     * Returns the number of reads and writes routed to this shard, a batch counting once per row.
+     */
+    public long getUseCount() {
+        return this.useCount.sum();
+    }
+
+    void used() {
+        this.useCount.increment();
+    }
+
+    PooledDataSource getPool() {
+        return this.pool;
+    }
+
+    /**
+     * Reserves the next block of values of the table, the <code>id_generators</code> row of the table holding the
+     * first value not reserved yet.
+     */
+    private IdBlock reserveIdBlock(Table table) {
+        Integer end = this.idBlockTransaction.execute(status -> {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(this.pool);
+            jdbcTemplate.update("UPDATE id_generators SET next_value = next_value + ? WHERE name = ?",
+                this.idBlockSize, table.getName());
+            return jdbcTemplate.queryForObject("SELECT next_value FROM id_generators WHERE name = ?",
+                Integer.class, table.getName());
+        });
+        return new IdBlock(end - this.idBlockSize, end);
+    }
+
+    @Override
+    public String toString() {
+        return this.name;
+    }
+
+    /**
+     * The tables whose rows are spread over the shards.
+     */
+    public enum Table {
+
+        OWNERS("owners"), PETS("pets"), VISITS("visits");
+
+        private final String name;
+
+        Table(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+    }
+
+    private static final class IdBlock {
+
+        private final AtomicInteger next;
+
+        private final int end;
+
+        private IdBlock(int next, int end) {
+            this.next = new AtomicInteger(next);
+            this.end = end;
+        }
+    }
+
+}
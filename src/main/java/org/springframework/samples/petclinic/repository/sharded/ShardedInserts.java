@@ -0,0 +1,95 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.repository.sharded;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.model.Visit;
+import org.springframework.samples.petclinic.repository.BulkWrites;
+import org.springframework.samples.petclinic.repository.sharded.Shard.Table;
+
+/**
+ * Inserts new owners, pets and visits into a shard with {@link BulkWrites JDBC batches}, after giving them ids of that
+ * shard.
+ */
+class ShardedInserts {
+
+    private final int batchSize;
+
+    ShardedInserts(BulkWrites bulkWrites) {
+        this.batchSize = bulkWrites.getBatchSize();
+    }
+
+    void insertOwners(Shard shard, Collection<Owner> owners) {
+        List<Object[]> rows = new ArrayList<>(owners.size());
+        for (Owner owner : owners) {
+            rows.add(new Object[]{shard.nextId(Table.OWNERS), owner.getFirstName(), owner.getLastName(),
+                owner.getAddress(), owner.getCity(), owner.getTelephone()});
+        }
+        batchUpdate(shard,
+            "INSERT INTO owners (id, first_name, last_name, address, city, telephone) VALUES (?, ?, ?, ?, ?, ?)",
+            rows);
+        int row = 0;
+        for (Owner owner : owners) {
+            owner.setId((Integer) rows.get(row++)[0]);
+        }
+    }
+
+    void insertPets(Shard shard, Collection<Pet> pets) {
+        List<Object[]> rows = new ArrayList<>(pets.size());
+        for (Pet pet : pets) {
+            rows.add(new Object[]{shard.nextId(Table.PETS), pet.getName(),
+                pet.getBirthDate() != null ? Date.valueOf(pet.getBirthDate()) : null, pet.getType().getId(),
+                pet.getOwner().getId()});
+        }
+        batchUpdate(shard, "INSERT INTO pets (id, name, birth_date, type_id, owner_id) VALUES (?, ?, ?, ?, ?)", rows);
+        int row = 0;
+        for (Pet pet : pets) {
+            pet.setId((Integer) rows.get(row++)[0]);
+        }
+    }
+
+    void insertVisits(Shard shard, Collection<Visit> visits) {
+        List<Object[]> rows = new ArrayList<>(visits.size());
+        for (Visit visit : visits) {
+            rows.add(new Object[]{shard.nextId(Table.VISITS), visit.getPet().getId(),
+                visit.getDate() != null ? Date.valueOf(visit.getDate()) : null, visit.getDescription()});
+        }
+        batchUpdate(shard, "INSERT INTO visits (id, pet_id, visit_date, description) VALUES (?, ?, ?, ?)", rows);
+        int row = 0;
+        for (Visit visit : visits) {
+            visit.setId((Integer) rows.get(row++)[0]);
+        }
+    }
+
+    /**
+     * Sends the rows in batches; the ids are only set on the entities once all rows are sent, so that entities that
+     * failed to be inserted stay new.
+     */
+    private void batchUpdate(Shard shard, String sql, List<Object[]> rows) {
+        shard.getJdbcTemplate().batchUpdate(sql, rows, this.batchSize, (ps, row) -> {
+            for (int i = 0; i < row.length; i++) {
+                ps.setObject(i + 1, row[i]);
+            }
+        });
+    }
+
+}
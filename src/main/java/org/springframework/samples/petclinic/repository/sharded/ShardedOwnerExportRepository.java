@@ -0,0 +1,52 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.repository.sharded;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.samples.petclinic.repository.OwnerExportRepository;
+import org.springframework.samples.petclinic.repository.jdbc.JdbcOwnerExportRepositoryImpl;
+import org.springframework.stereotype.Repository;
+
+/**
+ * {@link OwnerExportRepository} over {@link Shards}: the shards are read one after the other, through a
+ * {@link JdbcOwnerExportRepositoryImpl} each, so the rows are ordered by owner id within each shard only.
+ */
+@Repository
+public class ShardedOwnerExportRepository implements OwnerExportRepository {
+
+    private final List<JdbcOwnerExportRepositoryImpl> repositories = new ArrayList<>();
+
+    @Autowired
+    public ShardedOwnerExportRepository(Shards shards, @Value("${jdbc.exportFetchSize:500}") int fetchSize) {
+        for (Shard shard : shards.getShards()) {
+            this.repositories.add(new JdbcOwnerExportRepositoryImpl(shard.getDataSource(), fetchSize));
+        }
+    }
+
+    @Override
+    public void exportRows(RowCallbackHandler rowHandler) throws DataAccessException {
+        for (JdbcOwnerExportRepositoryImpl repository : this.repositories) {
+            repository.exportRows(rowHandler);
+        }
+    }
+
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.repository.sharded;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.OwnerSummary;
+import org.springframework.samples.petclinic.model.OwnerSummaryPage;
+import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.repository.BulkWrites;
+import org.springframework.samples.petclinic.repository.OwnerRepository;
+import org.springframework.samples.petclinic.repository.OwnerSummaryRows;
+import org.springframework.samples.petclinic.repository.ReferenceDataCache;
+import org.springframework.samples.petclinic.repository.jdbc.JdbcOwnerRepositoryImpl;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.Assert;
+
+/**
+ * {@link OwnerRepository} over {@link Shards}: reads and updates go to the shard of the owner, through a
+ * {@link JdbcOwnerRepositoryImpl} per shard; new owners go to the shards in turn, with their pets.
+ * <p>
+ * Searches by last name are scattered over all shards, each returning its owners sorted by last name, ignoring
+ * case, and id, and the sorted results are merged. A page of a search reads from each shard the owners up to the end of that page, as
+ * any of them may hold all of its owners.
+ */
+@Repository
+public class ShardedOwnerRepository implements OwnerRepository {
+
+    /**
+     * Order of the shards' results, ignoring case as the <code>VARCHAR_IGNORECASE</code> last names do in SQL.
+     */
+    private static final Comparator<Owner> OWNER_ORDER =
+        Comparator.comparing(Owner::getLastName, String.CASE_INSENSITIVE_ORDER).thenComparing(Owner::getId);
+
+    private static final Comparator<OwnerSummary> SUMMARY_ORDER =
+        Comparator.comparing(OwnerSummary::getLastName, String.CASE_INSENSITIVE_ORDER)
+            .thenComparing(OwnerSummary::getId);
+
+    private final Shards shards;
+
+    private final List<JdbcOwnerRepositoryImpl> repositories = new ArrayList<>();
+
+    private final ShardedInserts inserts;
+
+    @Autowired
+    public ShardedOwnerRepository(Shards shards, ReferenceDataCache referenceDataCache, BulkWrites bulkWrites) {
+        this.shards = shards;
+        for (Shard shard : shards.getShards()) {
+            this.repositories.add(new JdbcOwnerRepositoryImpl(shard.getDataSource(), referenceDataCache, bulkWrites));
+        }
+        this.inserts = new ShardedInserts(bulkWrites);
+    }
+
+    /**
+     * Returns the owners of all shards sorted by last name and id, with their pets and visits.
+     */
+    @Override
+    public Collection<Owner> findByLastName(String lastName) throws DataAccessException {
+        List<List<Owner>> owners = this.shards.scatter(shard -> {
+            List<Owner> shardOwners = new ArrayList<>(repository(shard).findByLastName(lastName));
+            shardOwners.sort(OWNER_ORDER);
+            return shardOwners;
+        });
+        return Shards.merge(owners, OWNER_ORDER);
+    }
+
+    @Override
+    public OwnerSummaryPage findSummariesByLastName(String lastName, int page, int size) throws DataAccessException {
+        int offset = OwnerSummaryRows.offset(page, size);
+        List<OwnerSummaryPage> pages = this.shards.scatter(shard ->
+            repository(shard).findSummariesByLastName(lastName, 0, offset + size));
+        return page(pages, offset, size);
+    }
+
+    @Override
+    public OwnerSummaryPage findSummariesByLastNameAfter(String lastName, String afterLastName, int afterId, int size)
+        throws DataAccessException {
+        List<OwnerSummaryPage> pages = this.shards.scatter(shard ->
+            repository(shard).findSummariesByLastNameAfter(lastName, afterLastName, afterId, size));
+        return page(pages, 0, size);
+    }
+
+    /**
+     * Merges the first pages of the shards and keeps <code>size</code> owners from <code>offset</code>. There is a
+     * next page if the shards gave more owners, or if one of them has more.
+     */
+    private static OwnerSummaryPage page(List<OwnerSummaryPage> shardPages, int offset, int size) {
+        List<List<OwnerSummary>> contents = new ArrayList<>(shardPages.size());
+        boolean shardHasMore = false;
+        for (OwnerSummaryPage shardPage : shardPages) {
+            contents.add(shardPage.getContent());
+            shardHasMore |= !shardPage.isLastPage();
+        }
+        List<OwnerSummary> merged = Shards.merge(contents, SUMMARY_ORDER);
+        int end = Math.min(offset + size, merged.size());
+        List<OwnerSummary> content = new ArrayList<>(merged.subList(Math.min(offset, end), end));
+        return new OwnerSummaryPage(content, size, !shardHasMore && merged.size() <= offset + size);
+    }
+
+    @Override
+    public Owner findById(int id) throws DataAccessException {
+        return repository(this.shards.shardOf(id)).findById(id);
+    }
+
+    @Override
+    public void save(Owner owner) throws DataAccessException {
+        if (owner.isNew()) {
+            this.inserts.insertOwners(this.shards.shardOfNewOwner(), Collections.singletonList(owner));
+        } else {
+            repository(this.shards.shardOf(owner.getId())).save(owner);
+        }
+    }
+
+    /**
+     * Spreads the owners over the shards in turn, then inserts the owners and pets of each shard in batches.
+     */
+    @Override
+    public void saveAll(Collection<Owner> owners) throws DataAccessException {
+        Map<Shard, List<Owner>> ownersByShard = new LinkedHashMap<>();
+        for (Owner owner : owners) {
+            Assert.isTrue(owner.isNew(), "Only new owners can be saved in batches");
+            ownersByShard.computeIfAbsent(this.shards.shardOfNewOwner(), shard -> new ArrayList<>()).add(owner);
+        }
+        for (Map.Entry<Shard, List<Owner>> entry : ownersByShard.entrySet()) {
+            this.inserts.insertOwners(entry.getKey(), entry.getValue());
+            List<Pet> pets = new ArrayList<>();
+            for (Owner owner : entry.getValue()) {
+                pets.addAll(owner.getPets());
+            }
+            this.inserts.insertPets(entry.getKey(), pets);
+        }
+    }
+
+    private JdbcOwnerRepositoryImpl repository(Shard shard) {
+        return this.repositories.get(shard.getIndex());
+    }
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.repository.sharded;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.orm.ObjectRetrievalFailureException;
+import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.model.PetType;
+import org.springframework.samples.petclinic.repository.BulkWrites;
+import org.springframework.samples.petclinic.repository.PetRepository;
+import org.springframework.samples.petclinic.repository.ReferenceDataCache;
+import org.springframework.samples.petclinic.repository.jdbc.JdbcPetRepositoryImpl;
+import org.springframework.stereotype.Repository;
+
+/**
+ * {@link PetRepository} over {@link Shards}: a pet is on the shard of its owner, and is read and updated through a
+ * {@link JdbcPetRepositoryImpl} per shard. Pet types are read from the main database.
+ * <p>
+ * A pet saved through this repository gets an id designating its shard; a pet looked up by id is searched there
+ * first, then on the other shards.
+ */
+@Repository
+public class ShardedPetRepository implements PetRepository {
+
+    private final Shards shards;
+
+    private final JdbcPetRepositoryImpl referenceData;
+
+    private final List<JdbcPetRepositoryImpl> repositories = new ArrayList<>();
+
+    private final ShardedInserts inserts;
+
+    @Autowired
+    public ShardedPetRepository(DataSource dataSource, Shards shards, ReferenceDataCache referenceDataCache,
+                                BulkWrites bulkWrites) {
+        this.shards = shards;
+        this.referenceData = new JdbcPetRepositoryImpl(dataSource, referenceDataCache);
+        for (Shard shard : shards.getShards()) {
+            this.repositories.add(new JdbcPetRepositoryImpl(shard.getDataSource(), referenceDataCache));
+        }
+        this.inserts = new ShardedInserts(bulkWrites);
+    }
+
+    @Override
+    public List<PetType> findPetTypes() throws DataAccessException {
+        return this.referenceData.findPetTypes();
+    }
+
+    @Override
+    public Pet findById(int id) throws DataAccessException {
+        Pet pet = this.shards.findFirst(id, shard -> {
+            try {
+                return this.repositories.get(shard.getIndex()).findById(id);
+            } catch (ObjectRetrievalFailureException ex) {
+                return null;
+            }
+        });
+        if (pet == null) {
+            throw new ObjectRetrievalFailureException(Pet.class, id);
+        }
+        return pet;
+    }
+
+    /**
+     * Saves the pet on the shard of its owner. A pet cannot move to an owner of another shard.
+     */
+    @Override
+    public void save(Pet pet) throws DataAccessException {
+        Shard shard = this.shards.shardOf(pet.getOwner().getId());
+        if (pet.isNew()) {
+            this.inserts.insertPets(shard, Collections.singletonList(pet));
+        } else {
+            this.repositories.get(shard.getIndex()).save(pet);
+        }
+    }
+
+}
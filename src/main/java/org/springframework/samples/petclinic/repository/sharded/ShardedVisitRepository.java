@@ -0,0 +1,108 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.repository.sharded;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.orm.ObjectRetrievalFailureException;
+import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.model.Visit;
+import org.springframework.samples.petclinic.repository.BulkWrites;
+import org.springframework.samples.petclinic.repository.ReferenceDataCache;
+import org.springframework.samples.petclinic.repository.VisitRepository;
+import org.springframework.samples.petclinic.repository.jdbc.JdbcVisitRepositoryImpl;
+import org.springframework.stereotype.Repository;
+
+/**
+ * {@link VisitRepository} over {@link Shards}: a visit is on the shard of the owner of its pet, and is read through a
+ * {@link JdbcVisitRepositoryImpl} per shard. A pet without its owner is searched like
+ * {@link ShardedPetRepository#findById a pet by id}.
+ */
+@Repository
+public class ShardedVisitRepository implements VisitRepository {
+
+    private final Shards shards;
+
+    private final List<JdbcVisitRepositoryImpl> repositories = new ArrayList<>();
+
+    private final ShardedInserts inserts;
+
+    @Autowired
+    public ShardedVisitRepository(Shards shards, ReferenceDataCache referenceDataCache, BulkWrites bulkWrites) {
+        this.shards = shards;
+        for (Shard shard : shards.getShards()) {
+            this.repositories.add(new JdbcVisitRepositoryImpl(shard.getDataSource(), referenceDataCache, bulkWrites));
+        }
+        this.inserts = new ShardedInserts(bulkWrites);
+    }
+
+    @Override
+    public void save(Visit visit) throws DataAccessException {
+        if (!visit.isNew()) {
+            throw new UnsupportedOperationException("Visit update not supported");
+        }
+        this.inserts.insertVisits(shardOf(visit.getPet()), Collections.singletonList(visit));
+    }
+
+    /**
+     * Groups the visits by shard and inserts those of each shard in batches.
+     */
+    @Override
+    public void saveAll(Collection<Visit> visits) throws DataAccessException {
+        Map<Shard, List<Visit>> visitsByShard = new LinkedHashMap<>();
+        for (Visit visit : visits) {
+            if (!visit.isNew()) {
+                throw new UnsupportedOperationException("Visit update not supported");
+            }
+            visitsByShard.computeIfAbsent(shardOf(visit.getPet()), shard -> new ArrayList<>()).add(visit);
+        }
+        for (Map.Entry<Shard, List<Visit>> entry : visitsByShard.entrySet()) {
+            this.inserts.insertVisits(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public List<Visit> findByPetId(Integer petId) {
+        List<Visit> visits = this.shards.findFirst(petId, shard ->
+            hasPet(shard, petId) ? this.repositories.get(shard.getIndex()).findByPetId(petId) : null);
+        return (visits != null ? visits : Collections.emptyList());
+    }
+
+    private Shard shardOf(Pet pet) {
+        if (pet.getOwner() != null && pet.getOwner().getId() != null) {
+            return this.shards.shardOf(pet.getOwner().getId());
+        }
+        Shard shard = this.shards.findFirst(pet.getId(), candidate -> hasPet(candidate, pet.getId()) ? candidate : null);
+        if (shard == null) {
+            throw new ObjectRetrievalFailureException(Pet.class, pet.getId());
+        }
+        return shard;
+    }
+
+    private static boolean hasPet(Shard shard, int petId) {
+        Integer count = shard.getJdbcTemplate().queryForObject("SELECT COUNT(*) FROM pets WHERE id = ?",
+            Integer.class, petId);
+        return (count != null && count > 0);
+    }
+
+}
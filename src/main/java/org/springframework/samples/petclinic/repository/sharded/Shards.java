@@ -0,0 +1,351 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.repository.sharded;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.transaction.ChainedTransactionManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.samples.petclinic.util.PooledDataSource;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+/**
+ * The databases holding the owners, their pets and their visits, each owner on the {@link Shard} whose index is the
+ * remainder of the division of its id by the number of shards. The pets and visits of an owner are on its shard.
+ * <p>
+ * The shards are reached through pools with the implementation and settings of the main <code>DataSource</code>,
+ * which keeps the reference data. Searches that cannot be routed by owner id are {@link #scatter scattered} over all
+ * shards in parallel, their sorted results being {@link #merge merged}.
+ * <p>
+ * The number of shards is fixed by the data: changing it moves owners to other shards, which is not supported.
+ */
+@ManagedResource("petclinic:type=Shards")
+public class Shards implements InitializingBean, DisposableBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(Shards.class);
+
+    private final DataSource dataSource;
+
+    private String[] shardUrls = new String[0];
+
+    private String[] shardInitScripts = new String[0];
+
+    private int idBlockSize = 50;
+
+    private int scatterThreads = 16;
+
+    private List<Shard> shards = Collections.emptyList();
+
+    private final AtomicInteger nextShard = new AtomicInteger();
+
+    private final LongAdder scatterCount = new LongAdder();
+
+    private ExecutorService scatterExecutor;
+
+    /**
+     * @param dataSource the main <code>DataSource</code>, wrapping the {@link PooledDataSource} whose settings the
+     *                   pools of the shards copy
+     */
+    public Shards(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Sets the JDBC URLs of the shards, in index order.
+     */
+    public void setShardUrls(String[] shardUrls) {
+        this.shardUrls = shardUrls;
+    }
+
+    /**
+     * Sets the classpath locations of SQL scripts to run on each shard at startup, so that local databases can stand
+     * in for shards. Each shard then only keeps the owners, pets and visits that belong to it.
+     */
+    public void setShardInitScripts(String[] shardInitScripts) {
+        this.shardInitScripts = shardInitScripts;
+    }
+
+    /**
+     * Sets the number of ids of a table a shard reserves at once in its <code>id_generators</code> table. Defaults
+     * to 50.
+     */
+    public void setIdBlockSize(int idBlockSize) {
+        this.idBlockSize = idBlockSize;
+    }
+
+    /**
+     * Sets the number of threads querying the shards of scattered searches. Defaults to 16.
+     */
+    public void setScatterThreads(int scatterThreads) {
+        this.scatterThreads = scatterThreads;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws SQLException {
+        List<String> urls = new ArrayList<>();
+        for (String url : this.shardUrls) {
+            if (StringUtils.hasText(url)) {
+                urls.add(url.trim());
+            }
+        }
+        if (urls.isEmpty()) {
+            throw new IllegalStateException("No shard URLs configured");
+        }
+        PooledDataSource template = this.dataSource.unwrap(PooledDataSource.class);
+        List<Shard> shards = new ArrayList<>();
+        for (String url : urls) {
+            shards.add(new Shard(shards.size(), urls.size(), url, template.copy(url), this.idBlockSize));
+        }
+        this.shards = Collections.unmodifiableList(shards);
+        if (this.shardInitScripts.length > 0) {
+            ResourceDatabasePopulator populator = new ResourceDatabasePopulator();
+            for (String script : this.shardInitScripts) {
+                populator.addScript(new ClassPathResource(script.trim()));
+            }
+            for (Shard shard : this.shards) {
+                DatabasePopulatorUtils.execute(populator, shard.getPool());
+                keepOwnRows(shard);
+            }
+        }
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("shard-scatter-");
+        threadFactory.setDaemon(true);
+        this.scatterExecutor = Executors.newFixedThreadPool(this.scatterThreads, threadFactory);
+        LOG.info("Owners sharded over {} databases: {}", this.shards.size(), this.shards);
+    }
+
+    /**
+     * Deletes the owners of the other shards, with their pets and visits, from a shard initialized with the data of
+     * all shards.
+     */
+    private void keepOwnRows(Shard shard) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(shard.getPool());
+        String otherOwner = "MOD(%s, " + this.shards.size() + ") <> " + shard.getIndex();
+        jdbcTemplate.update("DELETE FROM visits WHERE pet_id IN (SELECT id FROM pets WHERE " +
+            String.format(otherOwner, "owner_id") + ")");
+        jdbcTemplate.update("DELETE FROM pets WHERE " + String.format(otherOwner, "owner_id"));
+        jdbcTemplate.update("DELETE FROM owners WHERE " + String.format(otherOwner, "id"));
+    }
+
+    public List<Shard> getShards() {
+        return this.shards;
+    }
+
+    /**
+     * Returns the shard of the owner with the given id.
+     */
+    public Shard shardOf(int ownerId) {
+        Shard shard = this.shards.get(Math.floorMod(ownerId, this.shards.size()));
+        shard.used();
+        return shard;
+    }
+
+    /**
+     * Returns the shard of a new owner, the shards taking new owners in turn.
+     */
+    public Shard shardOfNewOwner() {
+        Shard shard = this.shards.get(Math.floorMod(this.nextShard.getAndIncrement(), this.shards.size()));
+        shard.used();
+        return shard;
+    }
+
+    /**
+     * Runs the task on every shard and returns the results in shard order.
+     * <p>
+     * The shards are queried in parallel, outside of the current transaction, unless it is a read-write one: its
+     * uncommitted writes are only visible to its own connections, so the shards are then queried one after the
+     * other in the current thread.
+     *
+     * @throws org.springframework.dao.DataAccessException the exception of the first failed task
+     */
+    public <T> List<T> scatter(Function<Shard, T> task) {
+        return scatter(this.shards, task);
+    }
+
+    /**
+     * Finds a row by id on its home shard, the shard its id designates, then on the other shards in parallel: rows
+     * created through these repositories are on their home shard, and rows loaded otherwise may not be.
+     *
+     * @param lookup returns the row from a shard, or <code>null</code> if not there
+     * @return the row, or <code>null</code> if on no shard
+     */
+    public <T> T findFirst(int id, Function<Shard, T> lookup) {
+        Shard home = shardOf(id);
+        T result = lookup.apply(home);
+        if (result != null) {
+            return result;
+        }
+        List<Shard> others = new ArrayList<>(this.shards);
+        others.remove(home);
+        for (T other : scatter(others, lookup)) {
+            if (other != null) {
+                return other;
+            }
+        }
+        return null;
+    }
+
+    private <T> List<T> scatter(List<Shard> shards, Function<Shard, T> task) {
+        this.scatterCount.increment();
+        List<T> results = new ArrayList<>(shards.size());
+        if (shards.size() == 1 || (TransactionSynchronizationManager.isActualTransactionActive() &&
+            !TransactionSynchronizationManager.isCurrentTransactionReadOnly())) {
+            for (Shard shard : shards) {
+                shard.used();
+                results.add(task.apply(shard));
+            }
+            return results;
+        }
+        List<Future<T>> futures = new ArrayList<>(shards.size());
+        for (Shard shard : shards) {
+            shard.used();
+            futures.add(this.scatterExecutor.submit(() -> task.apply(shard)));
+        }
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            if (ex.getCause() instanceof Error) {
+                throw (Error) ex.getCause();
+            }
+            throw new DataAccessResourceFailureException("Shard query failed", ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new DataAccessResourceFailureException("Interrupted while querying the shards", ex);
+        } finally {
+            for (Future<T> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Merges lists each sorted by the given comparator into one sorted list.
+     */
+    public static <T> List<T> merge(Collection<? extends List<? extends T>> sortedLists, Comparator<? super T> comparator) {
+        int size = 0;
+        PriorityQueue<Head<T>> heads = new PriorityQueue<>(Math.max(1, sortedLists.size()),
+            (first, second) -> comparator.compare(first.value, second.value));
+        for (List<? extends T> list : sortedLists) {
+            size += list.size();
+            Iterator<? extends T> iterator = list.iterator();
+            if (iterator.hasNext()) {
+                heads.add(new Head<>(iterator.next(), iterator));
+            }
+        }
+        List<T> merged = new ArrayList<>(size);
+        while (!heads.isEmpty()) {
+            Head<T> head = heads.poll();
+            merged.add(head.value);
+            if (head.rest.hasNext()) {
+                heads.add(new Head<>(head.rest.next(), head.rest));
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Returns a transaction manager running each transaction on all shards, a shard only taking a connection when
+     * used. The transactions of the shards are committed one after the other, not atomically: a failure between two
+     * commits leaves the writes of the committed shards.
+     */
+    public PlatformTransactionManager newTransactionManager() {
+        List<PlatformTransactionManager> transactionManagers = new ArrayList<>();
+        for (Shard shard : this.shards) {
+            transactionManagers.add(shard.getTransactionManager());
+        }
+        return new ChainedTransactionManager(transactionManagers.toArray(new PlatformTransactionManager[0]));
+    }
+
+    /**
+     * Returns one line per shard: its index, URL and the number of reads and writes routed to it.
+     */
+    @ManagedAttribute
+    public String[] getShardStatus() {
+        List<String> status = new ArrayList<>();
+        for (Shard shard : this.shards) {
+            status.add(String.format("%d %s: uses=%d", shard.getIndex(), shard.getName(), shard.getUseCount()));
+        }
+        return status.toArray(new String[0]);
+    }
+
+    /**
+     * Returns the number of searches sent to several shards.
+     */
+    @ManagedAttribute
+    public long getScatterCount() {
+        return this.scatterCount.sum();
+    }
+
+    /**
+     * Stops the scatter threads and closes the pools of the shards.
+     */
+    @Override
+    public void destroy() throws Exception {
+        if (this.scatterExecutor != null) {
+            this.scatterExecutor.shutdownNow();
+        }
+        for (Shard shard : this.shards) {
+            shard.getPool().close();
+        }
+    }
+
+    private static final class Head<T> {
+
+        private final T value;
+
+        private final Iterator<? extends T> rest;
+
+        private Head(T value, Iterator<? extends T> rest) {
+            this.value = value;
+            this.rest = rest;
+        }
+    }
+
+}
@@ -0,0 +1,7 @@
+/**
+ * The classes in this package represent the sharded JDBC implementation
+ * of PetClinic's persistence layer: owners, with their pets and visits,
+ * spread over several databases by owner id.
+ */
+package org.springframework.samples.petclinic.repository.sharded;
+
@@ -16,12 +16,21 @@
 package org.springframework.samples.petclinic.repository.springdatajpa;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.Repository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.OwnerSummary;
+import org.springframework.samples.petclinic.model.OwnerSummaryPage;
 import org.springframework.samples.petclinic.repository.OwnerRepository;
+import org.springframework.samples.petclinic.repository.OwnerSummaryRows;
 
 /**
  * Spring Data JPA specialization of the {@link OwnerRepository} interface
@@ -29,13 +38,53 @@ import org.springframework.samples.petclinic.repository.OwnerRepository;
  * @author Michael Isvy
  * @since 15.1.2013
  */
-public interface SpringDataOwnerRepository extends OwnerRepository, Repository<Owner, Integer> {
+public interface SpringDataOwnerRepository extends OwnerRepository, SpringDataOwnerRepositoryCustom, Repository<Owner, Integer> {
 
     @Override
-    @Query("SELECT DISTINCT owner FROM Owner owner left join fetch owner.pets WHERE owner.lastName LIKE :lastName%")
+    @Query("SELECT DISTINCT owner FROM Owner owner WHERE owner.lastName LIKE :lastName%")
+    @EntityGraph(Owner.WITH_PETS)
     public Collection<Owner> findByLastName(@Param("lastName") String lastName);
 
+    @Query("SELECT owner.id, owner.firstName, owner.lastName, owner.address, owner.city, owner.telephone " +
+        "FROM Owner owner WHERE owner.lastName LIKE :lastName% ORDER BY owner.lastName, owner.id")
+    Slice<Object[]> findSummaryRowsByLastName(@Param("lastName") String lastName, Pageable pageable);
+
+    @Query("SELECT owner.id, owner.firstName, owner.lastName, owner.address, owner.city, owner.telephone " +
+        "FROM Owner owner WHERE owner.lastName LIKE :lastName% " +
+        "AND (owner.lastName > :afterLastName OR (owner.lastName = :afterLastName AND owner.id > :afterId)) " +
+        "ORDER BY owner.lastName, owner.id")
+    Slice<Object[]> findSummaryRowsByLastNameAfter(@Param("lastName") String lastName,
+                                                  @Param("afterLastName") String afterLastName,
+                                                  @Param("afterId") int afterId, Pageable pageable);
+
+    @Query("SELECT pet.owner.id, pet.name FROM Pet pet WHERE pet.owner.id IN :ids ORDER BY pet.name")
+    List<Object[]> findPetNameRowsByOwnerIds(@Param("ids") Collection<Integer> ids);
+
+    @Override
+    default OwnerSummaryPage findSummariesByLastName(String lastName, int page, int size) {
+        OwnerSummaryRows.offset(page, size);
+        return toSummaryPage(findSummaryRowsByLastName(lastName, PageRequest.of(page, size)));
+    }
+
+    @Override
+    default OwnerSummaryPage findSummariesByLastNameAfter(String lastName, String afterLastName, int afterId, int size) {
+        return toSummaryPage(findSummaryRowsByLastNameAfter(lastName, afterLastName, afterId, PageRequest.of(0, size)));
+    }
+
+    /**
+     * Reads the pet names of the owners of the given slice only, which Spring Data fetched with one extra row to
+     * tell whether a next page exists.
+     */
+    default OwnerSummaryPage toSummaryPage(Slice<Object[]> ownerRows) {
+        List<OwnerSummary> summaries = ownerRows.hasContent()
+            ? OwnerSummaryRows.toSummaries(ownerRows.getContent(),
+                findPetNameRowsByOwnerIds(OwnerSummaryRows.ownerIds(ownerRows.getContent())))
+            : Collections.emptyList();
+        return new OwnerSummaryPage(summaries, ownerRows.getSize(), !ownerRows.hasNext());
+    }
+
     @Override
-    @Query("SELECT owner FROM Owner owner left join fetch owner.pets WHERE owner.id =:id")
+    @Query("SELECT owner FROM Owner owner WHERE owner.id =:id")
+    @EntityGraph(Owner.WITH_PETS_AND_VISITS)
     public Owner findById(@Param("id") int id);
 }
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.repository.springdatajpa;
+
+import java.util.Collection;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.repository.BulkWrites;
+
+/**
+ * Batched owner inserts for {@link SpringDataOwnerRepository}.
+ */
+public class SpringDataOwnerRepositoryCustomImpl implements SpringDataOwnerRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final BulkWrites bulkWrites;
+
+    @Autowired
+    public SpringDataOwnerRepositoryCustomImpl(BulkWrites bulkWrites) {
+        this.bulkWrites = bulkWrites;
+    }
+
+    @Override
+    public void saveAll(Collection<Owner> owners) {
+        this.bulkWrites.saveAll(this.em, owners, this.em::persist);
+    }
+
+}
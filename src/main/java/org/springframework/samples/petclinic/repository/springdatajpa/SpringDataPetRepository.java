@@ -17,9 +17,14 @@ package org.springframework.samples.petclinic.repository.springdatajpa;
 
 import java.util.List;
 
+import javax.persistence.QueryHint;
+
 import org.springframework.dao.DataAccessException;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.samples.petclinic.model.Pet;
 import org.springframework.samples.petclinic.model.PetType;
 import org.springframework.samples.petclinic.repository.PetRepository;
@@ -34,5 +39,14 @@ public interface SpringDataPetRepository extends PetRepository, Repository<Pet,
 
     @Override
     @Query("SELECT ptype FROM PetType ptype ORDER BY ptype.name")
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.CACHEABLE, value = "true"))
     List<PetType> findPetTypes() throws DataAccessException;
+
+    /**
+     * Queried rather than found by id, which would ignore the entity graph for a pet in the second-level cache.
+     */
+    @Override
+    @EntityGraph(Pet.WITH_VISITS)
+    @Query("SELECT pet FROM Pet pet WHERE pet.id = :id")
+    Pet findById(@Param("id") int id) throws DataAccessException;
 }
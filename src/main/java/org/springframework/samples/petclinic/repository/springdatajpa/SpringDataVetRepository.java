@@ -15,7 +15,16 @@
  */
 package org.springframework.samples.petclinic.repository.springdatajpa;
 
+import java.util.Collection;
+import java.util.List;
+
+import javax.persistence.QueryHint;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.Repository;
+import org.springframework.samples.petclinic.model.Specialty;
 import org.springframework.samples.petclinic.model.Vet;
 import org.springframework.samples.petclinic.repository.VetRepository;
 
@@ -26,4 +35,13 @@ import org.springframework.samples.petclinic.repository.VetRepository;
  * @since 15.1.2013
  */
 public interface SpringDataVetRepository extends VetRepository, Repository<Vet, Integer> {
+
+    @Override
+    @Query("SELECT DISTINCT vet FROM Vet vet left join fetch vet.specialties ORDER BY vet.lastName, vet.firstName")
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.CACHEABLE, value = "true"))
+    Collection<Vet> findAll() throws DataAccessException;
+
+    @Override
+    @Query("SELECT specialty FROM Specialty specialty ORDER BY specialty.name")
+    List<Specialty> findSpecialties() throws DataAccessException;
 }
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.repository.springdatajpa;
+
+import java.util.Collection;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.samples.petclinic.model.Visit;
+import org.springframework.samples.petclinic.repository.BulkWrites;
+
+/**
+ * Batched visit saving for {@link SpringDataVisitRepository}; <code>saveAll</code> of Spring Data's
+ * <code>SimpleJpaRepository</code> would keep every saved visit in the persistence context.
+ */
+public class SpringDataVisitRepositoryCustomImpl implements SpringDataVisitRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final BulkWrites bulkWrites;
+
+    @Autowired
+    public SpringDataVisitRepositoryCustomImpl(BulkWrites bulkWrites) {
+        this.bulkWrites = bulkWrites;
+    }
+
+    @Override
+    public void saveAll(Collection<Visit> visits) {
+        this.bulkWrites.saveAll(this.em, visits, visit -> {
+            if (visit.getId() == null) {
+                this.em.persist(visit);
+            } else {
+                this.em.merge(visit);
+            }
+        });
+    }
+
+}
@@ -19,6 +19,7 @@ import java.util.Collection;
 
 import org.springframework.dao.DataAccessException;
 import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.OwnerSummaryPage;
 import org.springframework.samples.petclinic.model.Pet;
 import org.springframework.samples.petclinic.model.PetType;
 import org.springframework.samples.petclinic.model.Vet;
@@ -34,6 +35,8 @@ public interface ClinicService {
 
     Collection<PetType> findPetTypes() throws DataAccessException;
 
+    PetType findPetTypeByName(String name) throws DataAccessException;
+
     Owner findOwnerById(int id) throws DataAccessException;
 
     Pet findPetById(int id) throws DataAccessException;
@@ -42,12 +45,20 @@ public interface ClinicService {
 
     void saveVisit(Visit visit) throws DataAccessException;
 
+    void saveVisits(Collection<Visit> visits) throws DataAccessException;
+
     Collection<Vet> findVets() throws DataAccessException;
 
     void saveOwner(Owner owner) throws DataAccessException;
 
+    void saveOwners(Collection<Owner> owners) throws DataAccessException;
+
     Collection<Owner> findOwnerByLastName(String lastName) throws DataAccessException;
 
+    OwnerSummaryPage findOwnerSummariesByLastName(String lastName, int page, int size) throws DataAccessException;
+
+    OwnerSummaryPage findOwnerSummariesByLastNameAfter(String lastName, String afterLastName, int afterId, int size) throws DataAccessException;
+
 	Collection<Visit> findVisitsByPetId(int petId);
 
 }
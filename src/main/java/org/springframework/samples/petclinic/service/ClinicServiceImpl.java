@@ -18,17 +18,22 @@ package org.springframework.samples.petclinic.service;
 import java.util.Collection;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.dao.DataAccessException;
 import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.OwnerSummaryPage;
 import org.springframework.samples.petclinic.model.Pet;
 import org.springframework.samples.petclinic.model.PetType;
 import org.springframework.samples.petclinic.model.Vet;
 import org.springframework.samples.petclinic.model.Visit;
 import org.springframework.samples.petclinic.repository.OwnerRepository;
 import org.springframework.samples.petclinic.repository.PetRepository;
+import org.springframework.samples.petclinic.repository.ReferenceDataCache;
 import org.springframework.samples.petclinic.repository.VetRepository;
 import org.springframework.samples.petclinic.repository.VisitRepository;
+import org.springframework.samples.petclinic.util.ReadYourWrites;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -45,25 +50,45 @@ public class ClinicServiceImpl implements ClinicService {
     private VetRepository vetRepository;
     private OwnerRepository ownerRepository;
     private VisitRepository visitRepository;
+    private ReferenceDataCache referenceDataCache;
 
     @Autowired
-    public ClinicServiceImpl(PetRepository petRepository, VetRepository vetRepository, OwnerRepository ownerRepository, VisitRepository visitRepository) {
+    public ClinicServiceImpl(PetRepository petRepository, VetRepository vetRepository, OwnerRepository ownerRepository,
+                             VisitRepository visitRepository, ReferenceDataCache referenceDataCache) {
         this.petRepository = petRepository;
         this.vetRepository = vetRepository;
         this.ownerRepository = ownerRepository;
         this.visitRepository = visitRepository;
+        this.referenceDataCache = referenceDataCache;
     }
 
+    /**
+     * Served from the {@link ReferenceDataCache}, which loads the pet types in a transaction of its own.
+     */
     @Override
-    @Transactional(readOnly = true)
     public Collection<PetType> findPetTypes() throws DataAccessException {
-        return petRepository.findPetTypes();
+        return referenceDataCache.getPetTypes();
     }
 
+    /**
+     * Looks the name up in the cached pet types, which picks up types added to the database since the cache was
+     * filled at most once per {@link ReferenceDataCache#setNameMissReloadInterval reload interval}, in a transaction
+     * of its own.
+     */
+    @Override
+    public PetType findPetTypeByName(String name) throws DataAccessException {
+        return referenceDataCache.findPetTypeByName(name);
+    }
+
+    /**
+     * Served from the <code>owners</code> cache, which hands out a copy of the cached owner, its pets and visits.
+     * A miss loads from the primary database, so that a lagging replica never fills the cache with stale data.
+     */
     @Override
     @Transactional(readOnly = true)
+    @Cacheable(value = "owners", key = "#id", sync = true)
     public Owner findOwnerById(int id) throws DataAccessException {
-        return ownerRepository.findById(id);
+        return ReadYourWrites.onPrimary(() -> ownerRepository.findById(id));
     }
 
     @Override
@@ -72,40 +97,97 @@ public class ClinicServiceImpl implements ClinicService {
         return ownerRepository.findByLastName(lastName);
     }
 
+    /**
+     * Served from the <code>ownerPages</code> cache, filled from the primary database like the <code>owners</code>
+     * cache.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    @Cacheable(value = "ownerPages", sync = true)
+    public OwnerSummaryPage findOwnerSummariesByLastName(String lastName, int page, int size) throws DataAccessException {
+        return ReadYourWrites.onPrimary(() -> ownerRepository.findSummariesByLastName(lastName, page, size));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @Cacheable(value = "ownerPages", sync = true)
+    public OwnerSummaryPage findOwnerSummariesByLastNameAfter(String lastName, String afterLastName, int afterId, int size) throws DataAccessException {
+        return ReadYourWrites.onPrimary(
+            () -> ownerRepository.findSummariesByLastNameAfter(lastName, afterLastName, afterId, size));
+    }
+
     @Override
     @Transactional
+    @Caching(evict = {
+        @CacheEvict(value = "owners", key = "#owner.id"),
+        @CacheEvict(value = "pets", allEntries = true),
+        @CacheEvict(value = "ownerPages", allEntries = true)})
     public void saveOwner(Owner owner) throws DataAccessException {
         ownerRepository.save(owner);
     }
 
+    @Override
+    @Transactional
+    @CacheEvict(value = "ownerPages", allEntries = true)
+    public void saveOwners(Collection<Owner> owners) throws DataAccessException {
+        ownerRepository.saveAll(owners);
+    }
+
 
     @Override
     @Transactional
+    @Caching(evict = {
+        @CacheEvict(value = "owners", key = "#visit.pet.owner.id", condition = "#visit.pet?.owner != null"),
+        @CacheEvict(value = "pets", key = "#visit.pet.id", condition = "#visit.pet != null")})
     public void saveVisit(Visit visit) throws DataAccessException {
         visitRepository.save(visit);
     }
 
+    @Override
+    @Transactional
+    @Caching(evict = {
+        @CacheEvict(value = "owners", allEntries = true),
+        @CacheEvict(value = "pets", allEntries = true)})
+    public void saveVisits(Collection<Visit> visits) throws DataAccessException {
+        visitRepository.saveAll(visits);
+    }
+
 
+    /**
+     * Served from the <code>pets</code> cache, which hands out a copy of the cached pet, its visits and owner.
+     * A miss loads from the primary database, like the <code>owners</code> cache.
+     */
     @Override
     @Transactional(readOnly = true)
+    @Cacheable(value = "pets", key = "#id", sync = true)
     public Pet findPetById(int id) throws DataAccessException {
-        return petRepository.findById(id);
+        return ReadYourWrites.onPrimary(() -> petRepository.findById(id));
     }
 
     @Override
     @Transactional
+    @Caching(evict = {
+        @CacheEvict(value = "owners", key = "#pet.owner.id", condition = "#pet.owner != null"),
+        @CacheEvict(value = "pets", key = "#pet.id"),
+        @CacheEvict(value = "ownerPages", allEntries = true)})
     public void savePet(Pet pet) throws DataAccessException {
         petRepository.save(pet);
     }
 
+    /**
+     * Served from the <code>vets</code> cache, which the {@link VetCacheLoader} refreshes in the background; this
+     * method only loads the vets when the cache holds none yet, taking the same {@link VetCacheLoader#snapshot
+     * snapshot} as the loader so that the cached vets have their specialties.
+     */
     @Override
     @Transactional(readOnly = true)
-    @Cacheable(value = "vets")
+    @Cacheable(value = "vets", sync = true)
     public Collection<Vet> findVets() throws DataAccessException {
-        return vetRepository.findAll();
+        return VetCacheLoader.snapshot(vetRepository.findAll());
     }
 
 	@Override
+	@Transactional(readOnly = true)
 	public Collection<Visit> findVisitsByPetId(int petId) {
 		return visitRepository.findByPetId(petId);
 	}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads CSV records one at a time, in the format written by {@link OwnerExportService}: comma separated values,
+ * optionally enclosed in double quotes (a quote inside a quoted value is doubled), records ending with CRLF or LF.
+ * Quoted values may span several lines.
+ */
+class CsvRecordReader {
+
+    private final Reader reader;
+
+    private long lineNumber = 1;
+
+    private long recordLineNumber;
+
+    private int pushedBack = -1;
+
+    CsvRecordReader(Reader reader) {
+        this.reader = (reader instanceof BufferedReader ? reader : new BufferedReader(reader));
+    }
+
+    /**
+     * Returns the values of the next record, or <code>null</code> at the end of the input. Blank lines are skipped.
+     */
+    String[] read() throws IOException {
+        int c = next();
+        while (c == '\r' || c == '\n') {
+            c = next();
+        }
+        if (c < 0) {
+            return null;
+        }
+        this.recordLineNumber = this.lineNumber;
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c < 0) {
+                    throw new IOException("Unterminated quoted value in CSV record starting at line " + this.recordLineNumber);
+                }
+                if (c == '"') {
+                    c = next();
+                    if (c != '"') {
+                        quoted = false;
+                        continue;
+                    }
+                }
+                value.append((char) c);
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else if (c < 0 || c == '\r' || c == '\n') {
+                if (c == '\r') {
+                    int lf = next();
+                    if (lf != '\n') {
+                        this.pushedBack = lf;
+                    }
+                }
+                values.add(value.toString());
+                return values.toArray(new String[0]);
+            } else {
+                value.append((char) c);
+            }
+            c = next();
+        }
+    }
+
+    /**
+     * Returns the line on which the last record read starts.
+     */
+    long getLineNumber() {
+        return this.recordLineNumber;
+    }
+
+    private int next() throws IOException {
+        int c;
+        if (this.pushedBack != -1) {
+            c = this.pushedBack;
+            this.pushedBack = -1;
+            return c;
+        }
+        c = this.reader.read();
+        if (c == '\n') {
+            this.lineNumber++;
+        }
+        return c;
+    }
+
+}
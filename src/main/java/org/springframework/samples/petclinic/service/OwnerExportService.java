@@ -0,0 +1,208 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.samples.petclinic.repository.OwnerExportRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Streams every owner with their pets and visits as CSV or JSON.
+ * <p>
+ * Exports write each row of the {@link OwnerExportRepository} as soon as it is read: no entity is created and heap
+ * use does not grow with the size of the tables.
+ */
+@Service
+public class OwnerExportService {
+
+    private static final String[] CSV_COLUMNS = {"owner_id", "first_name", "last_name", "address", "city", "telephone",
+        "pet_id", "pet_name", "birth_date", "type_name", "visit_id", "visit_date", "description"};
+
+    private final OwnerExportRepository ownerExportRepository;
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    @Autowired
+    public OwnerExportService(OwnerExportRepository ownerExportRepository) {
+        this.ownerExportRepository = ownerExportRepository;
+    }
+
+    /**
+     * Writes one CSV line per visit; pets without visits and owners without pets get a single line with empty
+     * trailing columns.
+     */
+    @Transactional(readOnly = true)
+    public void exportCsv(Writer writer) throws DataAccessException, IOException {
+        writeCsvLine(writer, CSV_COLUMNS);
+        query(rs -> {
+            String[] values = new String[CSV_COLUMNS.length];
+            for (int i = 0; i < values.length; i++) {
+                Object value = rs.getObject(CSV_COLUMNS[i]);
+                values[i] = (value != null ? value.toString() : null);
+            }
+            writeCsvLine(writer, values);
+        });
+        writer.flush();
+    }
+
+    /**
+     * Writes a JSON array of owners, each nesting its pets and their visits. The rows of an owner are consecutive and
+     * ordered by pet, so an object is closed as soon as a row belonging to another one is read.
+     */
+    @Transactional(readOnly = true)
+    public void exportJson(Writer writer) throws DataAccessException, IOException {
+        JsonGenerator json = this.jsonFactory.createGenerator(writer);
+        JsonRowWriter rowWriter = new JsonRowWriter(json);
+        json.writeStartArray();
+        query(rowWriter);
+        rowWriter.endOwner();
+        json.writeEndArray();
+        json.flush();
+    }
+
+    private void query(RowCallbackHandler rowHandler) throws IOException {
+        try {
+            this.ownerExportRepository.exportRows(rowHandler);
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    private static String toString(LocalDate date) {
+        return (date != null ? date.toString() : null);
+    }
+
+    private static void writeCsvLine(Writer writer, String[] values) {
+        try {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writeCsvValue(writer, values[i]);
+            }
+            writer.write("\r\n");
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static void writeCsvValue(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    /**
+     * Writes owner, pet and visit objects from the ordered export rows, keeping only the ids of the owner and pet
+     * currently open.
+     */
+    private static class JsonRowWriter implements RowCallbackHandler {
+
+        private final JsonGenerator json;
+
+        private Integer ownerId;
+
+        private Integer petId;
+
+        JsonRowWriter(JsonGenerator json) {
+            this.json = json;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            try {
+                writeRow(rs);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        private void writeRow(ResultSet rs) throws SQLException, IOException {
+            int rowOwnerId = rs.getInt("owner_id");
+            if (this.ownerId == null || rowOwnerId != this.ownerId) {
+                endOwner();
+                this.ownerId = rowOwnerId;
+                this.json.writeStartObject();
+                this.json.writeNumberField("id", rowOwnerId);
+                this.json.writeStringField("firstName", rs.getString("first_name"));
+                this.json.writeStringField("lastName", rs.getString("last_name"));
+                this.json.writeStringField("address", rs.getString("address"));
+                this.json.writeStringField("city", rs.getString("city"));
+                this.json.writeStringField("telephone", rs.getString("telephone"));
+                this.json.writeArrayFieldStart("pets");
+            }
+            int rowPetId = rs.getInt("pet_id");
+            if (rs.wasNull()) {
+                return;
+            }
+            if (this.petId == null || rowPetId != this.petId) {
+                endPet();
+                this.petId = rowPetId;
+                this.json.writeStartObject();
+                this.json.writeNumberField("id", rowPetId);
+                this.json.writeStringField("name", rs.getString("pet_name"));
+                this.json.writeStringField("birthDate", OwnerExportService.toString(rs.getObject("birth_date", LocalDate.class)));
+                this.json.writeStringField("type", rs.getString("type_name"));
+                this.json.writeArrayFieldStart("visits");
+            }
+            int visitId = rs.getInt("visit_id");
+            if (!rs.wasNull()) {
+                this.json.writeStartObject();
+                this.json.writeNumberField("id", visitId);
+                this.json.writeStringField("date", OwnerExportService.toString(rs.getObject("visit_date", LocalDate.class)));
+                this.json.writeStringField("description", rs.getString("description"));
+                this.json.writeEndObject();
+            }
+        }
+
+        private void endPet() throws IOException {
+            if (this.petId != null) {
+                this.json.writeEndArray();
+                this.json.writeEndObject();
+                this.petId = null;
+            }
+        }
+
+        void endOwner() throws IOException {
+            if (this.ownerId != null) {
+                endPet();
+                this.json.writeEndArray();
+                this.json.writeEndObject();
+                this.ownerId = null;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of an {@link OwnerImportService} run, also handed to the progress listener after every chunk.
+ * <p>
+ * Only the first {@link #MAX_REJECTIONS} rejected owners are described, so that a file full of bad rows does not
+ * produce a report as large as the file itself; {@link #getOwnersRejected()} still counts all of them.
+ */
+public class OwnerImportReport {
+
+    static final int MAX_REJECTIONS = 100;
+
+    private int ownersImported;
+
+    private int petsImported;
+
+    private int ownersRejected;
+
+    private final List<Rejection> rejections = new ArrayList<>();
+
+    private final List<Long> chunkMillis = new ArrayList<>();
+
+    private long totalMillis;
+
+    public int getOwnersImported() {
+        return this.ownersImported;
+    }
+
+    public int getPetsImported() {
+        return this.petsImported;
+    }
+
+    public int getOwnersRejected() {
+        return this.ownersRejected;
+    }
+
+    /**
+     * Returns the first rejected owners.
+     */
+    public List<Rejection> getRejections() {
+        return Collections.unmodifiableList(this.rejections);
+    }
+
+    /**
+     * Returns how long writing each chunk took, in milliseconds.
+     */
+    public List<Long> getChunkMillis() {
+        return Collections.unmodifiableList(this.chunkMillis);
+    }
+
+    public long getTotalMillis() {
+        return this.totalMillis;
+    }
+
+    void imported(int owners, int pets) {
+        this.ownersImported += owners;
+        this.petsImported += pets;
+    }
+
+    void rejected(long line, List<String> messages) {
+        this.ownersRejected++;
+        if (this.rejections.size() < MAX_REJECTIONS) {
+            this.rejections.add(new Rejection(line, messages));
+        }
+    }
+
+    void chunkWritten(long millis) {
+        this.chunkMillis.add(millis);
+    }
+
+    void finished(long totalMillis) {
+        this.totalMillis = totalMillis;
+    }
+
+    /**
+     * An owner that was not imported, with the line of the input on which it starts.
+     */
+    public static class Rejection {
+
+        private final long line;
+
+        private final List<String> messages;
+
+        Rejection(long line, List<String> messages) {
+            this.line = line;
+            this.messages = Collections.unmodifiableList(new ArrayList<>(messages));
+        }
+
+        public long getLine() {
+            return this.line;
+        }
+
+        public List<String> getMessages() {
+            return this.messages;
+        }
+
+        @Override
+        public String toString() {
+            return "line " + this.line + ": " + this.messages;
+        }
+    }
+
+}
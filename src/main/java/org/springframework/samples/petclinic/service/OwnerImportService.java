@@ -0,0 +1,347 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.model.PetType;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.Errors;
+import org.springframework.validation.FieldError;
+
+/**
+ * Imports new owners with their pets from the CSV or JSON formats written by {@link OwnerExportService}.
+ * <p>
+ * The input is read one owner at a time. Each owner is checked with the Bean Validation constraints of
+ * {@link Owner} and each of its pets with the {@link PetValidationRules}; invalid owners are rejected and reported,
+ * the others are written in chunks of <code>import.chunkSize</code> owners through {@link ClinicService#saveOwners},
+ * i.e. with batched inserts and one transaction per chunk. When a chunk fails, its owners are written again one by
+ * one so that a single bad owner does not take the rest of the chunk down with it. Chunks already written stay
+ * committed if the input turns out to be malformed further on.
+ * <p>
+ * Ids, and the visits present in the input, are ignored: owners and pets always get new ids.
+ */
+@Service
+public class OwnerImportService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OwnerImportService.class);
+
+    private final ClinicService clinicService;
+
+    private final int chunkSize;
+
+    private final Validator ownerValidator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    private final PetValidationRules petValidationRules = new PetValidationRules();
+
+    private final ObjectMapper objectMapper = new ObjectMapper().configure(JsonParser.Feature.AUTO_CLOSE_SOURCE, false);
+
+    @Autowired
+    public OwnerImportService(ClinicService clinicService, @Value("${import.chunkSize:1000}") int chunkSize) {
+        this.clinicService = clinicService;
+        this.chunkSize = chunkSize;
+    }
+
+    public OwnerImportReport importCsv(Reader reader) throws DataAccessException, IOException {
+        return importCsv(reader, null);
+    }
+
+    /**
+     * Imports CSV records with a header line naming their columns. Consecutive records with the same
+     * <code>owner_id</code> describe one owner, and within it consecutive records with the same <code>pet_id</code>
+     * one pet; records without these columns describe an owner, or a pet, each.
+     *
+     * @param progressListener called with the report so far after each chunk, may be <code>null</code>
+     */
+    public OwnerImportReport importCsv(Reader reader, Consumer<OwnerImportReport> progressListener)
+        throws DataAccessException, IOException {
+        ImportRun run = new ImportRun(progressListener);
+        CsvRecordReader csv = new CsvRecordReader(reader);
+        String[] header = csv.read();
+        if (header == null) {
+            return run.finish();
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.length; i++) {
+            columns.put(header[i].trim(), i);
+        }
+        ParsedOwner owner = null;
+        String ownerKey = null;
+        String petKey = null;
+        String[] record;
+        while ((record = csv.read()) != null) {
+            String rowOwnerKey = value(record, columns, "owner_id");
+            if (owner == null || rowOwnerKey == null || !rowOwnerKey.equals(ownerKey)) {
+                run.add(owner);
+                owner = new ParsedOwner(csv.getLineNumber(), value(record, columns, "first_name"),
+                    value(record, columns, "last_name"), value(record, columns, "address"),
+                    value(record, columns, "city"), value(record, columns, "telephone"));
+                ownerKey = rowOwnerKey;
+                petKey = null;
+            }
+            String rowPetKey = value(record, columns, "pet_id");
+            String petName = value(record, columns, "pet_name");
+            String birthDate = value(record, columns, "birth_date");
+            String type = value(record, columns, "type_name");
+            if (rowPetKey == null && petName == null && birthDate == null && type == null) {
+                continue;
+            }
+            if (rowPetKey == null || !rowPetKey.equals(petKey)) {
+                run.addPet(owner, petName, birthDate, type);
+                petKey = rowPetKey;
+            }
+        }
+        run.add(owner);
+        return run.finish();
+    }
+
+    public OwnerImportReport importJson(Reader reader) throws DataAccessException, IOException {
+        return importJson(reader, null);
+    }
+
+    /**
+     * Imports a JSON array of owners, each with an optional <code>pets</code> array. The parser only ever holds
+     * the owner being read.
+     *
+     * @param progressListener called with the report so far after each chunk, may be <code>null</code>
+     */
+    public OwnerImportReport importJson(Reader reader, Consumer<OwnerImportReport> progressListener)
+        throws DataAccessException, IOException {
+        ImportRun run = new ImportRun(progressListener);
+        try (JsonParser parser = this.objectMapper.getFactory().createParser(reader)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new JsonParseException(parser, "Expected an array of owners");
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                long line = parser.getTokenLocation().getLineNr();
+                JsonNode node = this.objectMapper.readTree(parser);
+                ParsedOwner owner = new ParsedOwner(line, text(node, "firstName"), text(node, "lastName"),
+                    text(node, "address"), text(node, "city"), text(node, "telephone"));
+                for (JsonNode pet : node.path("pets")) {
+                    run.addPet(owner, text(pet, "name"), text(pet, "birthDate"), text(pet, "type"));
+                }
+                run.add(owner);
+            }
+            if (parser.currentToken() != JsonToken.END_ARRAY) {
+                throw new JsonParseException(parser, "Expected an owner object");
+            }
+        }
+        return run.finish();
+    }
+
+    private static String value(String[] record, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= record.length || !StringUtils.hasLength(record[index])) {
+            return null;
+        }
+        return record[index];
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return (value != null && !value.isNull() ? value.asText() : null);
+    }
+
+    private static void resetIds(Owner owner) {
+        owner.setId(null);
+        for (Pet pet : owner.getPets()) {
+            pet.setId(null);
+        }
+    }
+
+    /**
+     * An owner read from the input, with the line it starts on and the errors met while reading it.
+     */
+    private static class ParsedOwner {
+
+        private final long line;
+
+        private final Owner owner = new Owner();
+
+        private final List<String> errors = new ArrayList<>();
+
+        ParsedOwner(long line, String firstName, String lastName, String address, String city, String telephone) {
+            this.line = line;
+            this.owner.setFirstName(firstName);
+            this.owner.setLastName(lastName);
+            this.owner.setAddress(address);
+            this.owner.setCity(city);
+            this.owner.setTelephone(telephone);
+        }
+    }
+
+    /**
+     * State of one import: the chunk being filled, the pet types resolved so far and the report.
+     */
+    private class ImportRun {
+
+        private final OwnerImportReport report = new OwnerImportReport();
+
+        private final Consumer<OwnerImportReport> progressListener;
+
+        private final List<ParsedOwner> chunk = new ArrayList<>();
+
+        private final Map<String, PetType> petTypes = new HashMap<>();
+
+        private final long start = System.nanoTime();
+
+        private int chunkCount;
+
+        ImportRun(Consumer<OwnerImportReport> progressListener) {
+            this.progressListener = progressListener;
+        }
+
+        void addPet(ParsedOwner owner, String name, String birthDate, String type) {
+            Pet pet = new Pet();
+            pet.setName(name);
+            if (birthDate != null) {
+                try {
+                    pet.setBirthDate(LocalDate.parse(birthDate));
+                } catch (DateTimeParseException ex) {
+                    owner.errors.add("pet '" + name + "' birthDate: invalid date '" + birthDate + "'");
+                }
+            }
+            if (type != null) {
+                // unknown names are remembered too, so that they do not reload the pet types on every row
+                PetType petType;
+                if (this.petTypes.containsKey(type)) {
+                    petType = this.petTypes.get(type);
+                } else {
+                    petType = clinicService.findPetTypeByName(type);
+                    this.petTypes.put(type, petType);
+                }
+                if (petType == null) {
+                    owner.errors.add("pet '" + name + "' type: unknown pet type '" + type + "'");
+                }
+                pet.setType(petType);
+            }
+            owner.owner.addPet(pet);
+        }
+
+        void add(ParsedOwner owner) {
+            if (owner == null) {
+                return;
+            }
+            List<String> errors = validate(owner);
+            if (!errors.isEmpty()) {
+                this.report.rejected(owner.line, errors);
+                return;
+            }
+            this.chunk.add(owner);
+            if (this.chunk.size() >= chunkSize) {
+                writeChunk();
+            }
+        }
+
+        OwnerImportReport finish() {
+            writeChunk();
+            long millis = (System.nanoTime() - this.start) / 1_000_000;
+            this.report.finished(millis);
+            LOG.info("Owner import finished in {} ms: {} owners and {} pets imported, {} owners rejected", millis,
+                this.report.getOwnersImported(), this.report.getPetsImported(), this.report.getOwnersRejected());
+            return this.report;
+        }
+
+        private List<String> validate(ParsedOwner owner) {
+            List<String> messages = new ArrayList<>(owner.errors);
+            List<String> ownerMessages = new ArrayList<>();
+            for (ConstraintViolation<Owner> violation : ownerValidator.validate(owner.owner)) {
+                ownerMessages.add(violation.getPropertyPath() + ": " + violation.getMessage());
+            }
+            Collections.sort(ownerMessages);
+            messages.addAll(ownerMessages);
+            for (Pet pet : owner.owner.getPets()) {
+                Errors errors = new BeanPropertyBindingResult(pet, "pet");
+                petValidationRules.validate(pet, errors);
+                for (FieldError error : errors.getFieldErrors()) {
+                    messages.add("pet '" + pet.getName() + "' " + error.getField() + ": " + error.getDefaultMessage());
+                }
+            }
+            return messages;
+        }
+
+        private void writeChunk() {
+            if (this.chunk.isEmpty()) {
+                return;
+            }
+            long chunkStart = System.nanoTime();
+            List<Owner> owners = new ArrayList<>(this.chunk.size());
+            int pets = 0;
+            for (ParsedOwner owner : this.chunk) {
+                owners.add(owner.owner);
+                pets += owner.owner.getPets().size();
+            }
+            try {
+                clinicService.saveOwners(owners);
+                this.report.imported(owners.size(), pets);
+            } catch (DataAccessException ex) {
+                LOG.warn("Owner import chunk {} failed, writing its {} owners one by one: {}", this.chunkCount + 1,
+                    owners.size(), ex.getMessage());
+                for (ParsedOwner owner : this.chunk) {
+                    writeOwner(owner);
+                }
+            }
+            this.chunkCount++;
+            long millis = (System.nanoTime() - chunkStart) / 1_000_000;
+            this.report.chunkWritten(millis);
+            LOG.info("Owner import chunk {} of {} owners written in {} ms", this.chunkCount, owners.size(), millis);
+            this.chunk.clear();
+            if (this.progressListener != null) {
+                this.progressListener.accept(this.report);
+            }
+        }
+
+        private void writeOwner(ParsedOwner owner) {
+            // the failed chunk may have assigned ids before rolling back
+            resetIds(owner.owner);
+            try {
+                clinicService.saveOwners(Collections.singletonList(owner.owner));
+                this.report.imported(1, owner.owner.getPets().size());
+            } catch (DataAccessException ex) {
+                resetIds(owner.owner);
+                this.report.rejected(owner.line, Collections.singletonList(ex.getMostSpecificCause().getMessage()));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.samples.petclinic.model.Vet;
+import org.springframework.samples.petclinic.repository.VetRepository;
+import org.springframework.samples.petclinic.util.ClinicCacheManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Loader of the <code>vets</code> cache backing {@link ClinicService#findVets()}, so that the cached vets are rebuilt
+ * in the background before they expire instead of being reloaded by the first request after expiry.
+ * <p>
+ * The cache holds a single entry, an unmodifiable snapshot of all vets, read in its own read-only transaction.
+ * The cache refreshes it at most once at a time while readers keep getting the previous snapshot. The snapshot is
+ * first loaded in the background once the application context has started.
+ */
+public class VetCacheLoader implements CacheLoader<Object, Object>, SmartInitializingSingleton {
+
+    private static final Logger LOG = LoggerFactory.getLogger(VetCacheLoader.class);
+
+    private final VetRepository vetRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ObjectProvider<CacheManager> cacheManager;
+
+    public VetCacheLoader(VetRepository vetRepository, PlatformTransactionManager transactionManager,
+                          ObjectProvider<CacheManager> cacheManager) {
+        this.vetRepository = vetRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * Return an unmodifiable copy of the given vets, safe to share between request threads, with their specialties
+     * initialized. Vets read from the query cache come without their specialties, read here from the collection
+     * cache; this must therefore be called in the transaction that read the vets.
+     */
+    static Collection<Vet> snapshot(Collection<Vet> vets) {
+        vets.forEach(Vet::getNrOfSpecialties);
+        return Collections.unmodifiableList(new ArrayList<>(vets));
+    }
+
+    @Override
+    public Object load(Object key) {
+        return this.transactionTemplate.execute(status -> snapshot(this.vetRepository.findAll()));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void afterSingletonsInstantiated() {
+        CacheManager cacheManager = this.cacheManager.getIfAvailable();
+        Cache cache = (cacheManager != null ? cacheManager.getCache(ClinicCacheManager.VETS) : null);
+        if (cache != null && cache.getNativeCache() instanceof LoadingCache) {
+            LOG.debug("Loading the vets cache in the background");
+            ((LoadingCache<Object, Object>) cache.getNativeCache()).refresh(SimpleKey.EMPTY);
+        }
+    }
+
+}
@@ -15,18 +15,48 @@
  */
 package org.springframework.samples.petclinic.util;
 
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jmx.export.MBeanExportException;
+import org.springframework.jmx.export.MBeanExportOperations;
 import org.springframework.jmx.export.annotation.ManagedAttribute;
 import org.springframework.jmx.export.annotation.ManagedOperation;
 import org.springframework.jmx.export.annotation.ManagedResource;
-import org.springframework.util.StopWatch;
+import org.springframework.util.ClassUtils;
 
 /**
  * Simple aspect that monitors call count and call invocation time. It uses JMX annotations and therefore can be
  * monitored using any JMX console such as the jConsole
  * <p/>
+ * Calls are timed in nanoseconds and recorded, without locking, in a {@link LatencyHistogram} for all calls, from
+ * which the mean, percentiles and maximum are reported in (fractional) milliseconds. Each repository method also
+ * gets its own {@link MethodCallStatistics}, exported as a
+ * <code>petclinic:type=CallMonitor,repository=&lt;class&gt;,method=&lt;signature&gt;</code> MBean when the method
+ * is first called. At most {@link #getMaxMethods() maxMethods} methods are tracked so that memory stays bounded;
+ * the calls of any further method are accumulated under <code>method=other</code>.
+ * <p/>
+ * The methods of <code>@Service</code> beans get statistics of their own as well, exported as
+ * <code>petclinic:type=CallMonitor,service=&lt;class&gt;,method=&lt;signature&gt;</code>, but are not counted in the
+ * aggregate call statistics, which remain those of the repositories. When the current thread is handling a web
+ * request timed by the {@link RequestTimingMonitor}, the time of its outermost service and repository calls is also
+ * added to its {@link RequestTimings}.
+ * <p/>
  * This is only useful if you use JPA or JDBC.  Spring-data-jpa doesn't have any correctly annotated classes to join on
  *
  * @author Rob Harrop
@@ -38,11 +68,33 @@ import org.springframework.util.StopWatch;
 @Aspect
 public class CallMonitoringAspect {
 
-    private boolean enabled = true;
+    private static final Logger LOG = LoggerFactory.getLogger(CallMonitoringAspect.class);
+
+    private static final String OBJECT_NAME_PREFIX = "petclinic:type=CallMonitor";
+
+    private static final String REPOSITORY = "repository";
+
+    private static final String SERVICE = "service";
+
+    private final ObjectProvider<MBeanExportOperations> mbeanExporter;
+
+    private volatile boolean enabled = true;
+
+    private volatile int maxMethods = 256;
 
-    private int callCount = 0;
+    private final LatencyHistogram callTimes = new LatencyHistogram();
 
-    private long accumulatedCallTime = 0;
+    private final LongAdder errorCount = new LongAdder();
+
+    private final Map<Class<?>, Map<Method, MethodCallStatistics>> methodStatistics = new ConcurrentHashMap<>();
+
+    private int methodCount;
+
+    private volatile MethodCallStatistics otherStatistics;
+
+    public CallMonitoringAspect(ObjectProvider<MBeanExportOperations> mbeanExporter) {
+        this.mbeanExporter = mbeanExporter;
+    }
 
     @ManagedAttribute
     public boolean isEnabled() {
@@ -54,39 +106,143 @@ public class CallMonitoringAspect {
         this.enabled = enabled;
     }
 
+    /**
+     * Returns the maximum number of repository and service methods with statistics of their own.
+     */
+    @ManagedAttribute
+    public int getMaxMethods() {
+        return this.maxMethods;
+    }
+
+    @ManagedAttribute
+    public void setMaxMethods(int maxMethods) {
+        this.maxMethods = maxMethods;
+    }
+
     @ManagedOperation
     public void reset() {
-        this.callCount = 0;
-        this.accumulatedCallTime = 0;
+        this.callTimes.reset();
+        this.errorCount.reset();
+        for (Map<Method, MethodCallStatistics> methods : this.methodStatistics.values()) {
+            methods.values().forEach(MethodCallStatistics::reset);
+        }
+    }
+
+    @ManagedAttribute
+    public long getCallCount() {
+        return this.callTimes.getCount();
     }
 
     @ManagedAttribute
-    public int getCallCount() {
-        return callCount;
+    public long getErrorCount() {
+        return this.errorCount.sum();
     }
 
+    /**
+     * Returns the mean call time in whole milliseconds.
+     */
     @ManagedAttribute
     public long getCallTime() {
-        if (this.callCount > 0)
-            return this.accumulatedCallTime / this.callCount;
-        else
-            return 0;
+        return (long) LatencyHistogram.toMillis(this.callTimes.getMeanNanos());
+    }
+
+    @ManagedAttribute
+    public double getCallTimeMean() {
+        return LatencyHistogram.toMillis(this.callTimes.getMeanNanos());
+    }
+
+    @ManagedAttribute
+    public double getCallTimeP50() {
+        return LatencyHistogram.toMillis(this.callTimes.getPercentileNanos(0.50));
+    }
+
+    @ManagedAttribute
+    public double getCallTimeP95() {
+        return LatencyHistogram.toMillis(this.callTimes.getPercentileNanos(0.95));
+    }
+
+    @ManagedAttribute
+    public double getCallTimeP99() {
+        return LatencyHistogram.toMillis(this.callTimes.getPercentileNanos(0.99));
+    }
+
+    @ManagedAttribute
+    public double getCallTimeMax() {
+        return LatencyHistogram.toMillis(this.callTimes.getMaxNanos());
+    }
+
+    /**
+     * Returns one line per monitored method with its call and error counts, its call time mean, percentiles and
+     * maximum in milliseconds and the number of rows it returned.
+     */
+    @ManagedAttribute
+    public String[] getMethodCallTimes() {
+        List<String> lines = new ArrayList<>();
+        for (Map<Method, MethodCallStatistics> methods : this.methodStatistics.values()) {
+            for (MethodCallStatistics statistics : methods.values()) {
+                if (statistics != this.otherStatistics) {
+                    lines.add(statistics.toString());
+                }
+            }
+        }
+        lines.sort(null);
+        MethodCallStatistics other = this.otherStatistics;
+        if (other != null) {
+            lines.add(other.toString());
+        }
+        return lines.toArray(new String[0]);
     }
 
 
     @Around("within(@org.springframework.stereotype.Repository *)")
     public Object invoke(ProceedingJoinPoint joinPoint) throws Throwable {
         if (this.enabled) {
-            StopWatch sw = new StopWatch(joinPoint.toShortString());
+            RequestTimings timings = RequestTimings.current();
+            if (timings != null) {
+                timings.repositoryStarted();
+            }
+            long start = System.nanoTime();
+            Object result = null;
+            boolean failed = true;
+            try {
+                result = joinPoint.proceed();
+                failed = false;
+                return result;
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                this.callTimes.record(elapsed);
+                if (failed) {
+                    this.errorCount.increment();
+                }
+                recordMethodCall(joinPoint, REPOSITORY, elapsed, failed, result);
+                if (timings != null) {
+                    timings.repositoryFinished(elapsed);
+                }
+            }
+        } else {
+            return joinPoint.proceed();
+        }
+    }
 
-            sw.start("invoke");
+    @Around("within(@org.springframework.stereotype.Service *)")
+    public Object invokeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (this.enabled) {
+            RequestTimings timings = RequestTimings.current();
+            if (timings != null) {
+                timings.serviceStarted();
+            }
+            long start = System.nanoTime();
+            Object result = null;
+            boolean failed = true;
             try {
-                return joinPoint.proceed();
+                result = joinPoint.proceed();
+                failed = false;
+                return result;
             } finally {
-                sw.stop();
-                synchronized (this) {
-                    this.callCount++;
-                    this.accumulatedCallTime += sw.getTotalTimeMillis();
+                long elapsed = System.nanoTime() - start;
+                recordMethodCall(joinPoint, SERVICE, elapsed, failed, result);
+                if (timings != null) {
+                    timings.serviceFinished(elapsed);
                 }
             }
         } else {
@@ -94,4 +250,63 @@ public class CallMonitoringAspect {
         }
     }
 
+    private void recordMethodCall(ProceedingJoinPoint joinPoint, String layer, long elapsed, boolean failed,
+                                  Object result) {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        methodStatistics(ClassUtils.getUserClass(joinPoint.getTarget()), method, layer)
+            .record(elapsed, failed, result, method.getReturnType() != void.class);
+    }
+
+    private MethodCallStatistics methodStatistics(Class<?> targetClass, Method method, String layer) {
+        Map<Method, MethodCallStatistics> methods = this.methodStatistics.get(targetClass);
+        MethodCallStatistics statistics = (methods != null ? methods.get(method) : null);
+        return (statistics != null ? statistics : addMethodStatistics(targetClass, method, layer));
+    }
+
+    private synchronized MethodCallStatistics addMethodStatistics(Class<?> targetClass, Method method, String layer) {
+        Map<Method, MethodCallStatistics> methods =
+            this.methodStatistics.computeIfAbsent(targetClass, key -> new ConcurrentHashMap<>());
+        MethodCallStatistics statistics = methods.get(method);
+        if (statistics != null) {
+            return statistics;
+        }
+        if (this.methodCount < this.maxMethods) {
+            this.methodCount++;
+            statistics = new MethodCallStatistics(targetClass.getSimpleName(), signature(method));
+            export(statistics, "," + layer + "=" + targetClass.getSimpleName() +
+                ",method=" + ObjectName.quote(statistics.getMethod()));
+        } else {
+            // later calls of the method find the shared statistics without coming back here
+            if (this.otherStatistics == null) {
+                this.otherStatistics = new MethodCallStatistics("*", "other");
+                export(this.otherStatistics, ",method=other");
+            }
+            statistics = this.otherStatistics;
+        }
+        methods.put(method, statistics);
+        return statistics;
+    }
+
+    private void export(MethodCallStatistics statistics, String keys) {
+        MBeanExportOperations exporter = this.mbeanExporter.getIfAvailable();
+        if (exporter == null) {
+            return;
+        }
+        try {
+            exporter.registerManagedResource(statistics, new ObjectName(OBJECT_NAME_PREFIX + keys));
+        } catch (MalformedObjectNameException | MBeanExportException ex) {
+            // monitoring must never break the monitored call
+            LOG.warn("Could not export call statistics of {}.{}: {}", statistics.getComponent(),
+                statistics.getMethod(), ex.getMessage());
+        }
+    }
+
+    private static String signature(Method method) {
+        StringJoiner signature = new StringJoiner(",", method.getName() + "(", ")");
+        for (Class<?> parameterType : method.getParameterTypes()) {
+            signature.add(parameterType.getSimpleName());
+        }
+        return signature.toString();
+    }
+
 }
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.function.UnaryOperator;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+/**
+ * {@link CaffeineCacheManager} holding the fixed set of named caches used by PetClinic, each one built from its own
+ * Caffeine specification (for instance <code>maximumSize=100,expireAfterWrite=60s,recordStats</code>).
+ * <p>
+ * A cache whose specification contains <code>refreshAfterWrite</code> is refreshed ahead of expiry: once an entry is
+ * older than the refresh interval, the next read still returns it and triggers a reload on the refresh executor,
+ * so readers never wait for the reload. Such a cache needs a {@link CacheLoader} registered under its name; the
+ * loader is also used to fill the cache on a miss. A reload that fails keeps the previous value.
+ * <p>
+ * A cache having a value copier registered under its name is a {@link CopyingCache}: it stores a copy of each value
+ * and returns a new copy on each read, so that mutable values are never shared.
+ * <p>
+ * The statistics of the caches recording them are exposed through JMX.
+ */
+@ManagedResource("petclinic:type=Caches")
+public class ClinicCacheManager extends CaffeineCacheManager implements InitializingBean {
+
+    public static final String VETS = "vets";
+
+    public static final String PET_TYPES = "petTypes";
+
+    public static final String SPECIALTIES = "specialties";
+
+    public static final String OWNER_PAGES = "ownerPages";
+
+    public static final String OWNERS = "owners";
+
+    public static final String PETS = "pets";
+
+    /**
+     * Names of the caches, in the order they are reported.
+     */
+    public static final List<String> CACHE_NAMES =
+        Collections.unmodifiableList(Arrays.asList(VETS, PET_TYPES, SPECIALTIES, OWNER_PAGES, OWNERS, PETS));
+
+    private static final String REFRESH_AFTER_WRITE = "refreshAfterWrite";
+
+    private Map<String, String> cacheSpecifications = Collections.emptyMap();
+
+    private Map<String, CacheLoader<Object, Object>> cacheLoaders = Collections.emptyMap();
+
+    private Map<String, UnaryOperator<Object>> valueCopiers = Collections.emptyMap();
+
+    private Executor refreshExecutor;
+
+    private Ticker ticker;
+
+    /**
+     * Set the Caffeine specification of each cache, keyed by cache name. The keys define the caches this manager
+     * holds.
+     */
+    public void setCacheSpecifications(Map<String, String> cacheSpecifications) {
+        this.cacheSpecifications = new LinkedHashMap<>(cacheSpecifications);
+    }
+
+    /**
+     * Set the loaders of the caches refreshed ahead of expiry, keyed by cache name.
+     */
+    public void setCacheLoaders(Map<String, CacheLoader<Object, Object>> cacheLoaders) {
+        this.cacheLoaders = new LinkedHashMap<>(cacheLoaders);
+    }
+
+    /**
+     * Set the copiers of the values of the caches copying their values, keyed by cache name.
+     */
+    public void setValueCopiers(Map<String, UnaryOperator<Object>> valueCopiers) {
+        this.valueCopiers = new LinkedHashMap<>(valueCopiers);
+    }
+
+    /**
+     * Set the executor running the loads and background refreshes. Defaults to the common fork-join pool.
+     */
+    public void setRefreshExecutor(Executor refreshExecutor) {
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    void setTicker(Ticker ticker) {
+        this.ticker = ticker;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        for (Map.Entry<String, String> entry : this.cacheSpecifications.entrySet()) {
+            if (entry.getValue().contains(REFRESH_AFTER_WRITE) && !this.cacheLoaders.containsKey(entry.getKey())) {
+                throw new IllegalStateException("Cache '" + entry.getKey() + "' is refreshed after write but has no loader");
+            }
+        }
+        setCacheNames(this.cacheSpecifications.keySet());
+    }
+
+    @Override
+    protected Cache createCaffeineCache(String name) {
+        Cache cache = super.createCaffeineCache(name);
+        UnaryOperator<Object> copier = this.valueCopiers.get(name);
+        return (copier != null ? new CopyingCache(cache, copier) : cache);
+    }
+
+    @Override
+    protected com.github.benmanes.caffeine.cache.Cache<Object, Object> createNativeCaffeineCache(String name) {
+        String specification = this.cacheSpecifications.get(name);
+        if (specification == null) {
+            return super.createNativeCaffeineCache(name);
+        }
+        Caffeine<Object, Object> builder = Caffeine.from(specification);
+        if (this.refreshExecutor != null) {
+            builder.executor(this.refreshExecutor);
+        }
+        if (this.ticker != null) {
+            builder.ticker(this.ticker);
+        }
+        CacheLoader<Object, Object> loader = this.cacheLoaders.get(name);
+        return (loader != null ? builder.build(loader) : builder.build());
+    }
+
+    /**
+     * Return one line of statistics per cache: its size, hits, misses, hit rate, loads and evictions.
+     */
+    @ManagedAttribute
+    public String[] getCacheStatistics() {
+        List<String> statistics = new ArrayList<>();
+        for (String name : orderedCacheNames()) {
+            com.github.benmanes.caffeine.cache.Cache<Object, Object> cache = getNativeCache(name);
+            CacheStats stats = cache.stats();
+            statistics.add(String.format("%s: size=%d, hits=%d, misses=%d, hitRate=%.3f, loads=%d, loadFailures=%d, "
+                    + "averageLoadMillis=%.3f, evictions=%d",
+                name, cache.estimatedSize(), stats.hitCount(), stats.missCount(), stats.hitRate(),
+                stats.loadCount(), stats.loadFailureCount(), stats.averageLoadPenalty() / 1_000_000.0,
+                stats.evictionCount()));
+        }
+        return statistics.toArray(new String[0]);
+    }
+
+    /**
+     * Remove all entries of the named cache.
+     */
+    @ManagedOperation
+    public void clear(String cacheName) {
+        Cache cache = getCache(cacheName);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Remove all entries of every cache.
+     */
+    @ManagedOperation
+    public void clearAll() {
+        for (String name : getCacheNames()) {
+            clear(name);
+        }
+    }
+
+    private Collection<String> orderedCacheNames() {
+        return (this.cacheSpecifications.isEmpty() ? getCacheNames() : this.cacheSpecifications.keySet());
+    }
+
+    @SuppressWarnings("unchecked")
+    private com.github.benmanes.caffeine.cache.Cache<Object, Object> getNativeCache(String name) {
+        Cache cache = getCache(name);
+        return (cache != null ? (com.github.benmanes.caffeine.cache.Cache<Object, Object>) cache.getNativeCache() : null);
+    }
+
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.util;
+
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+/**
+ * Exposes the state of the {@link PooledDataSource} behind a <code>DataSource</code> over JMX: how long callers
+ * wait for a connection and how often they time out, and, for the tomcat pool, its active, idle and waiting counts.
+ * With read replicas, it also reports where the connections of the {@link ReplicaRoutingDataSource} went and which
+ * replicas are up. Attributes that are not available for the pool in use are reported as -1.
+ */
+@ManagedResource("petclinic:type=ConnectionPool")
+public class ConnectionPoolMonitor {
+
+    private final DataSource dataSource;
+
+    public ConnectionPoolMonitor(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @ManagedAttribute
+    public String getType() {
+        PooledDataSource pool = pool();
+        return (pool != null ? pool.getType() : "unknown");
+    }
+
+    @ManagedAttribute
+    public int getActive() {
+        org.apache.tomcat.jdbc.pool.DataSource pool = tomcatPool();
+        return (pool != null ? pool.getActive() : -1);
+    }
+
+    @ManagedAttribute
+    public int getIdle() {
+        org.apache.tomcat.jdbc.pool.DataSource pool = tomcatPool();
+        return (pool != null ? pool.getIdle() : -1);
+    }
+
+    @ManagedAttribute
+    public int getSize() {
+        org.apache.tomcat.jdbc.pool.DataSource pool = tomcatPool();
+        return (pool != null ? pool.getSize() : -1);
+    }
+
+    @ManagedAttribute
+    public int getMaxActive() {
+        org.apache.tomcat.jdbc.pool.DataSource pool = tomcatPool();
+        return (pool != null ? pool.getMaxActive() : -1);
+    }
+
+    /**
+     * Returns the number of callers currently waiting for a connection.
+     */
+    @ManagedAttribute
+    public int getWaitCount() {
+        org.apache.tomcat.jdbc.pool.DataSource pool = tomcatPool();
+        return (pool != null ? pool.getWaitCount() : -1);
+    }
+
+    @ManagedAttribute
+    public long getBorrowedCount() {
+        org.apache.tomcat.jdbc.pool.DataSource pool = tomcatPool();
+        return (pool != null ? pool.getBorrowedCount() : -1);
+    }
+
+    @ManagedAttribute
+    public long getCreatedCount() {
+        org.apache.tomcat.jdbc.pool.DataSource pool = tomcatPool();
+        return (pool != null ? pool.getCreatedCount() : -1);
+    }
+
+    @ManagedAttribute
+    public long getConnectionTimeoutCount() {
+        PooledDataSource pool = pool();
+        return (pool != null ? pool.getConnectionTimeoutCount() : -1);
+    }
+
+    @ManagedAttribute
+    public double getConnectionWaitTimeMean() {
+        PooledDataSource pool = pool();
+        return (pool != null ? LatencyHistogram.toMillis(pool.getConnectionWaitTimes().getMeanNanos()) : -1);
+    }
+
+    @ManagedAttribute
+    public double getConnectionWaitTimeP99() {
+        PooledDataSource pool = pool();
+        return (pool != null ? LatencyHistogram.toMillis(pool.getConnectionWaitTimes().getPercentileNanos(0.99)) : -1);
+    }
+
+    @ManagedAttribute
+    public double getConnectionWaitTimeMax() {
+        PooledDataSource pool = pool();
+        return (pool != null ? LatencyHistogram.toMillis(pool.getConnectionWaitTimes().getMaxNanos()) : -1);
+    }
+
+    @ManagedOperation
+    public void resetConnectionWaitTimes() {
+        PooledDataSource pool = pool();
+        if (pool != null) {
+            pool.getConnectionWaitTimes().reset();
+        }
+    }
+
+    /**
+     * Returns one line per read replica: whether it is up and the number of connections it has given.
+     */
+    @ManagedAttribute
+    public String[] getReplicaStatus() {
+        ReplicaRoutingDataSource routing = routing();
+        return (routing != null ? routing.getReplicaStatus().toArray(new String[0]) : new String[0]);
+    }
+
+    @ManagedAttribute
+    public long getPrimaryConnectionCount() {
+        ReplicaRoutingDataSource routing = routing();
+        return (routing != null ? routing.getPrimaryConnectionCount() : -1);
+    }
+
+    @ManagedAttribute
+    public long getReplicaConnectionCount() {
+        ReplicaRoutingDataSource routing = routing();
+        return (routing != null ? routing.getReplicaConnectionCount() : -1);
+    }
+
+    /**
+     * Returns the number of read-only transactions sent to the primary because their client had just written.
+     */
+    @ManagedAttribute
+    public long getReadYourWritesCount() {
+        ReplicaRoutingDataSource routing = routing();
+        return (routing != null ? routing.getReadYourWritesCount() : -1);
+    }
+
+    /**
+     * Returns the number of read-only transactions sent to the primary because no replica was up.
+     */
+    @ManagedAttribute
+    public long getReplicaFallbackCount() {
+        ReplicaRoutingDataSource routing = routing();
+        return (routing != null ? routing.getFallbackCount() : -1);
+    }
+
+    @ManagedOperation
+    public void checkReplicas() {
+        ReplicaRoutingDataSource routing = routing();
+        if (routing != null) {
+            routing.checkReplicas();
+        }
+    }
+
+    private ReplicaRoutingDataSource routing() {
+        try {
+            if (this.dataSource.isWrapperFor(ReplicaRoutingDataSource.class)) {
+                return this.dataSource.unwrap(ReplicaRoutingDataSource.class);
+            }
+            return null;
+        } catch (SQLException ex) {
+            return null;
+        }
+    }
+
+    private PooledDataSource pool() {
+        try {
+            if (this.dataSource.isWrapperFor(PooledDataSource.class)) {
+                return this.dataSource.unwrap(PooledDataSource.class);
+            }
+            return null;
+        } catch (SQLException ex) {
+            return null;
+        }
+    }
+
+    private org.apache.tomcat.jdbc.pool.DataSource tomcatPool() {
+        PooledDataSource pool = pool();
+        if (pool != null && pool.getTargetDataSource() instanceof org.apache.tomcat.jdbc.pool.DataSource) {
+            return (org.apache.tomcat.jdbc.pool.DataSource) pool.getTargetDataSource();
+        }
+        return null;
+    }
+
+}
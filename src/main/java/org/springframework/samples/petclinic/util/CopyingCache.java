@@ -0,0 +1,102 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+/**
+ * {@link Cache} decorator storing a private copy of each value and handing out a fresh copy on every read, for
+ * values that are mutable but must not be shared between request threads. A value loaded on a miss is returned to
+ * its loader as is, only its copy being stored.
+ */
+public class CopyingCache implements Cache {
+
+    private final Cache target;
+
+    private final UnaryOperator<Object> copier;
+
+    public CopyingCache(Cache target, UnaryOperator<Object> copier) {
+        this.target = target;
+        this.copier = copier;
+    }
+
+    @Override
+    public String getName() {
+        return this.target.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return this.target.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return copy(this.target.get(key));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        return (T) copy(this.target.get(key, type));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        AtomicReference<T> loaded = new AtomicReference<>();
+        T value = this.target.get(key, () -> {
+            T loadedValue = valueLoader.call();
+            loaded.set(loadedValue);
+            return (T) copy(loadedValue);
+        });
+        return (loaded.get() != null ? loaded.get() : (T) copy(value));
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        this.target.put(key, copy(value));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        return copy(this.target.putIfAbsent(key, copy(value)));
+    }
+
+    @Override
+    public void evict(Object key) {
+        this.target.evict(key);
+    }
+
+    @Override
+    public void clear() {
+        this.target.clear();
+    }
+
+    private Object copy(Object value) {
+        return (value != null ? this.copier.apply(value) : null);
+    }
+
+    private ValueWrapper copy(ValueWrapper wrapper) {
+        return (wrapper != null ? new SimpleValueWrapper(copy(wrapper.get())) : null);
+    }
+
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+import javax.persistence.Persistence;
+import javax.persistence.PersistenceUtil;
+
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.model.Visit;
+
+/**
+ * Deep copy of an {@link Owner} or a {@link Pet} together with the graph reachable from it: the owner, its pets and
+ * their visits. Pet types are shared, being immutable reference data.
+ * <p>
+ * The copy is made of plain model objects, detached from any persistence context, and reproduces the shape of the
+ * original graph: an object reached twice is copied once. Associations that the fetch plan of the original left
+ * unloaded are not loaded by the copy, which leaves them empty.
+ */
+public class EntityGraphCopier implements UnaryOperator<Object> {
+
+    private static final PersistenceUtil PERSISTENCE_UTIL = Persistence.getPersistenceUtil();
+
+    /**
+     * Copy the given {@link Owner} or {@link Pet}.
+     *
+     * @throws IllegalArgumentException if the object is neither an owner nor a pet
+     */
+    @Override
+    public Object apply(Object entity) {
+        if (entity instanceof Owner) {
+            return copyOf((Owner) entity);
+        }
+        if (entity instanceof Pet) {
+            return copyOf((Pet) entity);
+        }
+        throw new IllegalArgumentException("Cannot copy " + entity.getClass().getName());
+    }
+
+    public static Owner copyOf(Owner owner) {
+        return new Copy().owner(owner);
+    }
+
+    public static Pet copyOf(Pet pet) {
+        return new Copy().pet(pet);
+    }
+
+    /**
+     * One copy operation, remembering the objects copied so far.
+     */
+    private static final class Copy {
+
+        private final Map<Object, Object> copies = new IdentityHashMap<>();
+
+        private Owner owner(Owner owner) {
+            Owner copy = (Owner) this.copies.get(owner);
+            if (copy != null) {
+                return copy;
+            }
+            copy = new Owner();
+            this.copies.put(owner, copy);
+            copy.setId(owner.getId());
+            copy.setFirstName(owner.getFirstName());
+            copy.setLastName(owner.getLastName());
+            copy.setAddress(owner.getAddress());
+            copy.setCity(owner.getCity());
+            copy.setTelephone(owner.getTelephone());
+            if (PERSISTENCE_UTIL.isLoaded(owner, "pets")) {
+                for (Pet pet : owner.getPets()) {
+                    Pet petCopy = pet(pet);
+                    if (petCopy.getOwner() == null) {
+                        copy.addPet(petCopy);
+                    }
+                }
+            }
+            return copy;
+        }
+
+        private Pet pet(Pet pet) {
+            Pet copy = (Pet) this.copies.get(pet);
+            if (copy != null) {
+                return copy;
+            }
+            copy = new Pet();
+            this.copies.put(pet, copy);
+            copy.setId(pet.getId());
+            copy.setName(pet.getName());
+            copy.setBirthDate(pet.getBirthDate());
+            copy.setType(pet.getType());
+            if (pet.getOwner() != null) {
+                owner(pet.getOwner()).addPet(copy);
+            }
+            if (PERSISTENCE_UTIL.isLoaded(pet, "visits")) {
+                for (Visit visit : pet.getVisits()) {
+                    copy.addVisit(visit(visit));
+                }
+            }
+            return copy;
+        }
+
+        private Visit visit(Visit visit) {
+            Visit copy = new Visit();
+            copy.setId(visit.getId());
+            copy.setDate(visit.getDate());
+            copy.setDescription(visit.getDescription());
+            return copy;
+        }
+    }
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.util;
+
+import java.util.Collection;
+
+import org.springframework.orm.ObjectRetrievalFailureException;
+import org.springframework.samples.petclinic.model.BaseEntity;
+
+/**
+ * Immutable index of entities by their <code>int</code> id. Built once from a collection, it replaces repeated
+ * {@link EntityUtils#getById} linear scans with constant-time lookups.
+ * <p>
+ * Ids are stored in a primitive <code>int[]</code> hash table with open addressing and linear probing, so lookups
+ * neither box the id nor allocate. Entities without an id or not of the indexed class are skipped; when several
+ * entities share an id, the first one wins, as with {@link EntityUtils#getById}.
+ *
+ * @param <T> the indexed entity type
+ * @see EntityUtils#getById
+ */
+public final class EntityIndex<T extends BaseEntity> {
+
+    private static final int HASH_MULTIPLIER = 0x9E3779B9;
+
+    private final Class<T> entityClass;
+
+    private final int[] ids;
+
+    private final Object[] entities;
+
+    private final int mask;
+
+    private final int size;
+
+    private EntityIndex(Class<T> entityClass, Collection<? extends BaseEntity> source) {
+        this.entityClass = entityClass;
+        int capacity = tableSizeFor(source.size());
+        this.ids = new int[capacity];
+        this.entities = new Object[capacity];
+        this.mask = capacity - 1;
+        int count = 0;
+        for (BaseEntity entity : source) {
+            if (entity.getId() == null || !entityClass.isInstance(entity)) {
+                continue;
+            }
+            int id = entity.getId();
+            int slot = slot(id);
+            while (this.entities[slot] != null && this.ids[slot] != id) {
+                slot = (slot + 1) & this.mask;
+            }
+            if (this.entities[slot] == null) {
+                this.ids[slot] = id;
+                this.entities[slot] = entity;
+                count++;
+            }
+        }
+        this.size = count;
+    }
+
+    /**
+     * Build an index of the entities of the given class contained in the given collection.
+     *
+     * @param entities    the collection to index
+     * @param entityClass the entity class to index
+     * @return the index
+     */
+    public static <T extends BaseEntity> EntityIndex<T> of(Collection<? extends BaseEntity> entities, Class<T> entityClass) {
+        return new EntityIndex<>(entityClass, entities);
+    }
+
+    /**
+     * Look up the entity with the given id.
+     *
+     * @param entityId the entity id to look up
+     * @return the found entity
+     * @throws ObjectRetrievalFailureException if the entity was not found
+     */
+    public T getById(int entityId) throws ObjectRetrievalFailureException {
+        T entity = findById(entityId);
+        if (entity == null) {
+            throw new ObjectRetrievalFailureException(this.entityClass, entityId);
+        }
+        return entity;
+    }
+
+    /**
+     * Look up the entity with the given id.
+     *
+     * @param entityId the entity id to look up
+     * @return the found entity, or <code>null</code> if none
+     */
+    public T findById(int entityId) {
+        int slot = slot(entityId);
+        Object entity;
+        while ((entity = this.entities[slot]) != null) {
+            if (this.ids[slot] == entityId) {
+                return this.entityClass.cast(entity);
+            }
+            slot = (slot + 1) & this.mask;
+        }
+        return null;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    private int slot(int id) {
+        int hash = id * HASH_MULTIPLIER;
+        return (hash ^ (hash >>> 16)) & this.mask;
+    }
+
+    /**
+     * Smallest power of two keeping the load factor at or below one half, so that probe sequences stay short and
+     * always reach an empty slot.
+     */
+    private static int tableSizeFor(int expectedSize) {
+        int capacity = 2;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+}
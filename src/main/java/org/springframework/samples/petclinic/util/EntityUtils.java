@@ -28,12 +28,16 @@ import org.springframework.samples.petclinic.model.BaseEntity;
  * @author Juergen Hoeller
  * @author Sam Brannen
  * @see org.springframework.samples.petclinic.model.BaseEntity
+ * @see EntityIndex
  * @since 29.10.2003
  */
 public abstract class EntityUtils {
 
     /**
      * Look up the entity of the given class with the given id in the given collection.
+     * <p>
+     * This walks the whole collection; callers looking up many ids in the same collection should build an
+     * {@link EntityIndex} once instead.
      *
      * @param entities    the collection to search
      * @param entityClass the entity class to look up
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.util;
+
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.samples.petclinic.model.OwnerSummaryPage;
+
+/**
+ * Statistics of the calls to one repository or service method, collected by the {@link CallMonitoringAspect} and
+ * exported as an MBean of their own: call and error counts, call time distribution and, for methods returning a
+ * value, the number of rows returned.
+ */
+@ManagedResource
+public class MethodCallStatistics {
+
+    private final String component;
+
+    private final String method;
+
+    private final LatencyHistogram callTimes = new LatencyHistogram();
+
+    private final LongAdder errorCount = new LongAdder();
+
+    private final LongAdder rowCount = new LongAdder();
+
+    private final LongAdder rowCallCount = new LongAdder();
+
+    public MethodCallStatistics(String component, String method) {
+        this.component = component;
+        this.method = method;
+    }
+
+    /**
+     * Records one call.
+     *
+     * @param nanos  the call time
+     * @param failed whether the call threw an exception
+     * @param result the value returned, ignored if the call failed or the method is <code>void</code>
+     * @param returnsValue whether the method returns a value
+     */
+    public void record(long nanos, boolean failed, Object result, boolean returnsValue) {
+        this.callTimes.record(nanos);
+        if (failed) {
+            this.errorCount.increment();
+        } else if (returnsValue) {
+            this.rowCount.add(rowCount(result));
+            this.rowCallCount.increment();
+        }
+    }
+
+    @ManagedAttribute
+    public String getComponent() {
+        return this.component;
+    }
+
+    @ManagedAttribute
+    public String getMethod() {
+        return this.method;
+    }
+
+    @ManagedAttribute
+    public long getCallCount() {
+        return this.callTimes.getCount();
+    }
+
+    @ManagedAttribute
+    public long getErrorCount() {
+        return this.errorCount.sum();
+    }
+
+    @ManagedAttribute
+    public double getCallTimeMean() {
+        return LatencyHistogram.toMillis(this.callTimes.getMeanNanos());
+    }
+
+    @ManagedAttribute
+    public double getCallTimeP50() {
+        return LatencyHistogram.toMillis(this.callTimes.getPercentileNanos(0.50));
+    }
+
+    @ManagedAttribute
+    public double getCallTimeP95() {
+        return LatencyHistogram.toMillis(this.callTimes.getPercentileNanos(0.95));
+    }
+
+    @ManagedAttribute
+    public double getCallTimeP99() {
+        return LatencyHistogram.toMillis(this.callTimes.getPercentileNanos(0.99));
+    }
+
+    @ManagedAttribute
+    public double getCallTimeMax() {
+        return LatencyHistogram.toMillis(this.callTimes.getMaxNanos());
+    }
+
+    /**
+     * Returns the total number of rows returned by the successful calls of a method returning a value: the size of
+     * a returned collection, map or array, the owners of an {@link OwnerSummaryPage}, 0 for <code>null</code> and 1
+     * for any other value.
+     */
+    @ManagedAttribute
+    public long getRowCount() {
+        return this.rowCount.sum();
+    }
+
+    @ManagedAttribute
+    public double getRowCountMean() {
+        long calls = this.rowCallCount.sum();
+        return (calls > 0 ? (double) this.rowCount.sum() / calls : 0);
+    }
+
+    @ManagedOperation
+    public void reset() {
+        this.callTimes.reset();
+        this.errorCount.reset();
+        this.rowCount.reset();
+        this.rowCallCount.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s.%s count=%d errors=%d mean=%.3f p50=%.3f p95=%.3f p99=%.3f max=%.3f rows=%d",
+            this.component, this.method, getCallCount(), getErrorCount(), getCallTimeMean(), getCallTimeP50(),
+            getCallTimeP95(), getCallTimeP99(), getCallTimeMax(), getRowCount());
+    }
+
+    static long rowCount(Object result) {
+        if (result == null) {
+            return 0;
+        }
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Map) {
+            return ((Map<?, ?>) result).size();
+        }
+        if (result instanceof OwnerSummaryPage) {
+            return ((OwnerSummaryPage) result).getContent().size();
+        }
+        if (result.getClass().isArray()) {
+            return Array.getLength(result);
+        }
+        return 1;
+    }
+
+}
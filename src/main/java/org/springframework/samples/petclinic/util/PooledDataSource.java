@@ -0,0 +1,253 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.util;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.Properties;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.sql.DataSource;
+
+import org.apache.tomcat.jdbc.pool.DataSourceFactory;
+import org.apache.tomcat.jdbc.pool.PoolExhaustedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Connection pool of a configurable implementation, timing how long callers wait for a connection.
+ * <p>
+ * The {@link #setType type} selects the implementation: {@link #TOMCAT} for the tomcat jdbc connection pool,
+ * {@link #SIMPLE} for no pooling at all, as a baseline, or the class name of any <code>DataSource</code> with a
+ * default constructor and JavaBean setters, so that other pools can be benchmarked without code changes. The
+ * {@link #setProperties pool properties} are the settings of that implementation, by name.
+ *
+ * @see ConnectionPoolMonitor
+ */
+public class PooledDataSource extends DelegatingDataSource implements AutoCloseable {
+
+    public static final String TOMCAT = "tomcat";
+
+    public static final String SIMPLE = "simple";
+
+    /**
+     * Prefix of the pool settings in <code>spring/data-access.properties</code>.
+     */
+    public static final String PROPERTY_PREFIX = "jdbc.pool.";
+
+    private static final Logger LOG = LoggerFactory.getLogger(PooledDataSource.class);
+
+    private String type = TOMCAT;
+
+    private String driverClassName;
+
+    private String url;
+
+    private String username;
+
+    private String password;
+
+    private Properties properties = new Properties();
+
+    private final LatencyHistogram connectionWaitTimes = new LatencyHistogram();
+
+    private final LongAdder connectionTimeoutCount = new LongAdder();
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getType() {
+        return this.type;
+    }
+
+    public void setDriverClassName(String driverClassName) {
+        this.driverClassName = driverClassName;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    /**
+     * Sets the settings of the pool implementation, such as <code>maxActive</code> or <code>jdbcInterceptors</code>
+     * for the tomcat pool.
+     */
+    public void setProperties(Properties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Extracts the settings of the pool implementation from the given properties: those whose name starts with
+     * {@link #PROPERTY_PREFIX}, without the prefix, other than <code>type</code>.
+     */
+    public static Properties poolProperties(Properties properties) {
+        Properties poolProperties = new Properties();
+        for (String name : properties.stringPropertyNames()) {
+            if (name.startsWith(PROPERTY_PREFIX) && !name.equals(PROPERTY_PREFIX + "type")) {
+                poolProperties.setProperty(name.substring(PROPERTY_PREFIX.length()), properties.getProperty(name));
+            }
+        }
+        return poolProperties;
+    }
+
+    /**
+     * Returns a new pool of the same implementation and settings as this one, connecting to the given URL, such as
+     * the URL of a replica of this database or of a shard.
+     */
+    public PooledDataSource copy(String url) {
+        PooledDataSource copy = new PooledDataSource();
+        copy.setType(this.type);
+        copy.setDriverClassName(this.driverClassName);
+        copy.setUrl(url);
+        copy.setUsername(this.username);
+        copy.setPassword(this.password);
+        copy.setProperties(this.properties);
+        copy.afterPropertiesSet();
+        return copy;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (getTargetDataSource() == null) {
+            setTargetDataSource(createDataSource());
+        }
+        super.afterPropertiesSet();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return timedConnection(() -> obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return timedConnection(() -> obtainTargetDataSource().getConnection(username, password));
+    }
+
+    /**
+     * Returns how long callers waited for a connection, successfully or not.
+     */
+    public LatencyHistogram getConnectionWaitTimes() {
+        return this.connectionWaitTimes;
+    }
+
+    /**
+     * Returns the number of connection requests that gave up waiting for a connection.
+     */
+    public long getConnectionTimeoutCount() {
+        return this.connectionTimeoutCount.sum();
+    }
+
+    /**
+     * Closes the underlying pool, if it can be closed, logging a failure to close it.
+     */
+    @Override
+    public void close() {
+        DataSource target = getTargetDataSource();
+        if (target instanceof org.apache.tomcat.jdbc.pool.DataSource) {
+            ((org.apache.tomcat.jdbc.pool.DataSource) target).close();
+        } else if (target instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) target).close();
+            } catch (Exception ex) {
+                LOG.warn("Could not close the {} pool", this.type, ex);
+            }
+        }
+    }
+
+    private Connection timedConnection(ConnectionSupplier connectionSupplier) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            return connectionSupplier.getConnection();
+        } catch (PoolExhaustedException | SQLTimeoutException ex) {
+            this.connectionTimeoutCount.increment();
+            throw ex;
+        } finally {
+            this.connectionWaitTimes.record(System.nanoTime() - start);
+        }
+    }
+
+    private DataSource createDataSource() {
+        if (TOMCAT.equals(this.type)) {
+            Properties poolProperties = new Properties();
+            poolProperties.putAll(this.properties);
+            putIfNotNull(poolProperties, "driverClassName", this.driverClassName);
+            putIfNotNull(poolProperties, "url", this.url);
+            putIfNotNull(poolProperties, "username", this.username);
+            putIfNotNull(poolProperties, "password", this.password);
+            return new org.apache.tomcat.jdbc.pool.DataSource(DataSourceFactory.parsePoolProperties(poolProperties));
+        }
+        if (SIMPLE.equals(this.type)) {
+            DriverManagerDataSource dataSource = new DriverManagerDataSource(this.url, this.username, this.password);
+            if (this.driverClassName != null) {
+                dataSource.setDriverClassName(this.driverClassName);
+            }
+            return dataSource;
+        }
+        DataSource dataSource = BeanUtils.instantiateClass(
+            ClassUtils.resolveClassName(this.type, ClassUtils.getDefaultClassLoader()), DataSource.class);
+        BeanWrapper bean = PropertyAccessorFactory.forBeanPropertyAccess(dataSource);
+        setIfWritable(bean, "driverClassName", this.driverClassName);
+        setIfWritable(bean, "url", this.url);
+        setIfWritable(bean, "username", this.username);
+        setIfWritable(bean, "password", this.password);
+        for (String name : this.properties.stringPropertyNames()) {
+            setIfWritable(bean, name, this.properties.getProperty(name));
+        }
+        return dataSource;
+    }
+
+    private static void putIfNotNull(Properties properties, String name, String value) {
+        if (value != null) {
+            properties.setProperty(name, value);
+        }
+    }
+
+    private void setIfWritable(BeanWrapper bean, String name, String value) {
+        if (value == null) {
+            return;
+        }
+        if (bean.isWritableProperty(name)) {
+            bean.setPropertyValue(name, value);
+        } else {
+            LOG.warn("Ignoring property '{}', not supported by {}", name, this.type);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ConnectionSupplier {
+
+        Connection getConnection() throws SQLException;
+    }
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import java.util.function.Supplier;
+
+/**
+ * Time of the last write of the client served by the current thread, so that its reads can be kept on the primary
+ * database until the replicas have caught up with it, see {@link ReplicaRoutingDataSource}.
+ * <p>
+ * Web requests carry it from one request of a client to the next in its session: it is {@link #bind bound} to the
+ * thread for the duration of a request and {@link #unbind unbound} at its end. Other threads keep their own.
+ * <p>
+ * Reads whose result is shared by all clients, such as the loads filling a cache, run {@link #onPrimary on the
+ * primary} whoever their client: a replica lagging behind the write of another client would share stale data.
+ */
+public final class ReadYourWrites {
+
+    private static final ThreadLocal<Long> LAST_WRITE = new ThreadLocal<>();
+
+    private static final ThreadLocal<Boolean> ON_PRIMARY = new ThreadLocal<>();
+
+    private ReadYourWrites() {
+    }
+
+    /**
+     * Records that the current client has just written to the primary database.
+     */
+    public static void recordWrite() {
+        LAST_WRITE.set(System.currentTimeMillis());
+    }
+
+    /**
+     * Returns when the current client last wrote, in milliseconds since the epoch, or <code>null</code> if unknown.
+     */
+    public static Long lastWrite() {
+        return LAST_WRITE.get();
+    }
+
+    /**
+     * Returns whether the current client wrote less than the given number of milliseconds ago.
+     */
+    public static boolean isWithin(long windowMillis) {
+        Long lastWrite = LAST_WRITE.get();
+        return (lastWrite != null && System.currentTimeMillis() - lastWrite < windowMillis);
+    }
+
+    /**
+     * Runs the given read with its connections on the primary database, for a result shared with other clients.
+     */
+    public static <T> T onPrimary(Supplier<T> read) {
+        boolean nested = isOnPrimary();
+        ON_PRIMARY.set(Boolean.TRUE);
+        try {
+            return read.get();
+        } finally {
+            if (!nested) {
+                ON_PRIMARY.remove();
+            }
+        }
+    }
+
+    /**
+     * Returns whether the current thread runs a read {@link #onPrimary on the primary}.
+     */
+    public static boolean isOnPrimary() {
+        return ON_PRIMARY.get() != null;
+    }
+
+    /**
+     * Binds the time of the last write of the client whose request the current thread starts handling.
+     *
+     * @param lastWrite when it last wrote, or <code>null</code> if unknown
+     */
+    public static void bind(Long lastWrite) {
+        if (lastWrite != null) {
+            LAST_WRITE.set(lastWrite);
+        } else {
+            LAST_WRITE.remove();
+        }
+    }
+
+    /**
+     * Unbinds the time of the last write of the client from the current thread.
+     *
+     * @return when it last wrote, or <code>null</code> if unknown
+     */
+    public static Long unbind() {
+        Long lastWrite = LAST_WRITE.get();
+        LAST_WRITE.remove();
+        return lastWrite;
+    }
+
+}
@@ -0,0 +1,375 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+/**
+ * <code>DataSource</code> sending read-only transactions to read replicas of the primary database, and everything
+ * else to the primary.
+ * <p>
+ * The replicas take the reads in turn. Each replica is checked every {@link #setHealthCheckInterval health check
+ * interval}; a replica failing a check, or failing to give a connection, gets no reads until a later check succeeds.
+ * Reads go to the primary when no replica is up.
+ * <p>
+ * A client that has just written keeps reading from the primary for a {@link #setReadYourWritesWindow window}
+ * covering the replication lag, so that it sees its own writes, see {@link ReadYourWrites}. Reads shared with other
+ * clients, such as cache fills, always go to the primary.
+ * <p>
+ * Transactions are only known to be read-only once they have started, after their connection has been requested:
+ * with replicas, the connections handed out are lazy proxies, choosing their database on their first statement.
+ * Without replicas, this <code>DataSource</code> hands out the connections of the primary.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements InitializingBean, AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    /**
+     * Records the write of a transaction once committed, so that the window starts when the replicas can start
+     * replicating it, and a rolled back transaction leaves its client on the replicas. Registered once per
+     * transaction, synchronizations being a set.
+     */
+    private static final TransactionSynchronization RECORD_WRITE = new TransactionSynchronizationAdapter() {
+        @Override
+        public void afterCommit() {
+            ReadYourWrites.recordWrite();
+        }
+    };
+
+    private final DataSource primary;
+
+    private List<Replica> replicas = Collections.emptyList();
+
+    private String[] replicaInitScripts = new String[0];
+
+    private long healthCheckInterval = 5000;
+
+    private int healthCheckTimeout = 2;
+
+    private long readYourWritesWindow = 2000;
+
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    private final LongAdder primaryConnectionCount = new LongAdder();
+
+    private final LongAdder readYourWritesCount = new LongAdder();
+
+    private final LongAdder fallbackCount = new LongAdder();
+
+    private DataSource lazyDataSource;
+
+    private ScheduledExecutorService healthChecks;
+
+    public ReplicaRoutingDataSource(DataSource primary) {
+        this.primary = primary;
+    }
+
+    /**
+     * Sets the replicas, named after their position.
+     */
+    public void setReplicas(List<DataSource> replicas) {
+        List<Replica> named = new ArrayList<>();
+        for (DataSource replica : replicas) {
+            named.add(new Replica("replica-" + (named.size() + 1), replica));
+        }
+        this.replicas = named;
+    }
+
+    /**
+     * Sets the JDBC URLs of the replicas, connected to through pools with the implementation and settings of the
+     * primary, which must be a {@link PooledDataSource}.
+     */
+    public void setReplicaUrls(String[] replicaUrls) {
+        List<Replica> replicas = new ArrayList<>();
+        for (String url : replicaUrls) {
+            if (!StringUtils.hasText(url)) {
+                continue;
+            }
+            if (!(this.primary instanceof PooledDataSource)) {
+                throw new IllegalStateException("Replica URLs need a PooledDataSource as primary");
+            }
+            replicas.add(new Replica(url.trim(), ((PooledDataSource) this.primary).copy(url.trim())));
+        }
+        this.replicas = replicas;
+    }
+
+    /**
+     * Sets the classpath locations of SQL scripts to run on each replica at startup, so that local databases can
+     * stand in for replicas.
+     */
+    public void setReplicaInitScripts(String[] replicaInitScripts) {
+        this.replicaInitScripts = replicaInitScripts;
+    }
+
+    /**
+     * Sets the milliseconds between two checks of the replicas. Defaults to 5 seconds.
+     */
+    public void setHealthCheckInterval(long healthCheckInterval) {
+        this.healthCheckInterval = healthCheckInterval;
+    }
+
+    /**
+     * Sets the seconds a replica has to answer a check. Defaults to 2 seconds.
+     */
+    public void setHealthCheckTimeout(int healthCheckTimeout) {
+        this.healthCheckTimeout = healthCheckTimeout;
+    }
+
+    /**
+     * Sets the milliseconds after a write of a client during which its reads go to the primary. Defaults to 2
+     * seconds.
+     */
+    public void setReadYourWritesWindow(long readYourWritesWindow) {
+        this.readYourWritesWindow = readYourWritesWindow;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (this.replicas.isEmpty()) {
+            return;
+        }
+        if (this.replicaInitScripts.length > 0) {
+            ResourceDatabasePopulator populator = new ResourceDatabasePopulator();
+            for (String script : this.replicaInitScripts) {
+                populator.addScript(new ClassPathResource(script));
+            }
+            for (Replica replica : this.replicas) {
+                DatabasePopulatorUtils.execute(populator, replica.dataSource);
+            }
+        }
+        this.lazyDataSource = new LazyConnectionDataSourceProxy(new Router());
+        checkReplicas();
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("replica-health-check-");
+        threadFactory.setDaemon(true);
+        this.healthChecks = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        this.healthChecks.scheduleWithFixedDelay(this::checkReplicas, this.healthCheckInterval,
+            this.healthCheckInterval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return (this.lazyDataSource != null ? this.lazyDataSource.getConnection() : this.primary.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return this.primary.getConnection(username, password);
+    }
+
+    /**
+     * Checks each replica now, marking it up or down.
+     */
+    public void checkReplicas() {
+        for (Replica replica : this.replicas) {
+            try (Connection connection = replica.dataSource.getConnection()) {
+                if (connection.isValid(this.healthCheckTimeout)) {
+                    replica.up();
+                } else {
+                    replica.down(null);
+                }
+            } catch (SQLException ex) {
+                replica.down(ex);
+            }
+        }
+    }
+
+    /**
+     * Returns one line per replica: its name, whether it is up, and the number of connections it has given.
+     */
+    public List<String> getReplicaStatus() {
+        List<String> status = new ArrayList<>();
+        for (Replica replica : this.replicas) {
+            status.add(String.format("%s: %s, connections=%d", replica.name, (replica.up ? "up" : "down"),
+                replica.connectionCount.sum()));
+        }
+        return status;
+    }
+
+    /**
+     * Returns the number of connections to the primary given by the lazy connections, for writes and reads alike.
+     */
+    public long getPrimaryConnectionCount() {
+        return this.primaryConnectionCount.sum();
+    }
+
+    /**
+     * Returns the number of connections to the replicas.
+     */
+    public long getReplicaConnectionCount() {
+        long count = 0;
+        for (Replica replica : this.replicas) {
+            count += replica.connectionCount.sum();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of read-only transactions sent to the primary because their client had just written.
+     */
+    public long getReadYourWritesCount() {
+        return this.readYourWritesCount.sum();
+    }
+
+    /**
+     * Returns the number of read-only transactions sent to the primary because no replica was up.
+     */
+    public long getFallbackCount() {
+        return this.fallbackCount.sum();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return (T) this;
+        }
+        return this.primary.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return (iface.isInstance(this) || this.primary.isWrapperFor(iface));
+    }
+
+    /**
+     * Stops checking the replicas and closes them and the primary, if they can be closed. A database failing to
+     * close is logged, and does not keep the others open.
+     */
+    @Override
+    public void close() {
+        if (this.healthChecks != null) {
+            this.healthChecks.shutdownNow();
+        }
+        for (Replica replica : this.replicas) {
+            close(replica.name, replica.dataSource);
+        }
+        close("primary", this.primary);
+    }
+
+    private static void close(String name, DataSource dataSource) {
+        if (dataSource instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) dataSource).close();
+            } catch (Exception ex) {
+                LOG.warn("Could not close the {} database", name, ex);
+            }
+        }
+    }
+
+    private Connection primaryConnection() throws SQLException {
+        this.primaryConnectionCount.increment();
+        return this.primary.getConnection();
+    }
+
+    /**
+     * Chooses the database of a lazy connection on its first statement.
+     */
+    private final class Router extends AbstractDataSource {
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+                if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                    TransactionSynchronizationManager.registerSynchronization(RECORD_WRITE);
+                }
+                return primaryConnection();
+            }
+            if (ReadYourWrites.isOnPrimary()) {
+                return primaryConnection();
+            }
+            if (ReadYourWrites.isWithin(readYourWritesWindow)) {
+                readYourWritesCount.increment();
+                return primaryConnection();
+            }
+            int first = nextReplica.getAndIncrement();
+            for (int i = 0; i < replicas.size(); i++) {
+                Replica replica = replicas.get(Math.floorMod(first + i, replicas.size()));
+                if (replica.up) {
+                    try {
+                        Connection connection = replica.dataSource.getConnection();
+                        replica.connectionCount.increment();
+                        return connection;
+                    } catch (SQLException ex) {
+                        replica.down(ex);
+                    }
+                }
+            }
+            fallbackCount.increment();
+            return primaryConnection();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return primary.getConnection(username, password);
+        }
+    }
+
+    private static final class Replica {
+
+        private final String name;
+
+        private final DataSource dataSource;
+
+        private final LongAdder connectionCount = new LongAdder();
+
+        private volatile boolean up = true;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        private void up() {
+            if (!this.up) {
+                LOG.info("Replica {} is up again", this.name);
+                this.up = true;
+            }
+        }
+
+        private void down(SQLException cause) {
+            if (this.up) {
+                LOG.warn("Replica {} is down, its reads go to the other replicas or the primary", this.name, cause);
+                this.up = false;
+            }
+        }
+    }
+
+}
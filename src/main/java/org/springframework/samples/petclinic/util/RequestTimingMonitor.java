@@ -0,0 +1,126 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+/**
+ * Aggregates the {@link RequestTimings} of the web requests, layer by layer: whole request, handler method, service
+ * calls, repository calls and view rendering. Every request is logged at debug level with its breakdown, and those
+ * slower than the slow request threshold at warn level.
+ * <p>
+ * When disabled, requests are not timed at all: nothing is bound to the request thread and the
+ * {@link CallMonitoringAspect} has nothing to add to.
+ */
+@ManagedResource("petclinic:type=RequestTimings")
+public class RequestTimingMonitor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RequestTimingMonitor.class);
+
+    private volatile boolean enabled = true;
+
+    private volatile long slowRequestThresholdNanos = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private final LatencyHistogram requestTimes = new LatencyHistogram();
+
+    private final LatencyHistogram handlerTimes = new LatencyHistogram();
+
+    private final LatencyHistogram serviceTimes = new LatencyHistogram();
+
+    private final LatencyHistogram repositoryTimes = new LatencyHistogram();
+
+    private final LatencyHistogram viewTimes = new LatencyHistogram();
+
+    @ManagedAttribute
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    @ManagedAttribute
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @ManagedAttribute
+    public long getSlowRequestThreshold() {
+        return TimeUnit.NANOSECONDS.toMillis(this.slowRequestThresholdNanos);
+    }
+
+    /**
+     * Sets the time, in milliseconds, above which a request is logged at warn level.
+     */
+    @ManagedAttribute
+    public void setSlowRequestThreshold(long millis) {
+        this.slowRequestThresholdNanos = TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    public void record(RequestTimings timings) {
+        this.requestTimes.record(timings.getTotalNanos());
+        this.handlerTimes.record(timings.getHandlerNanos());
+        this.serviceTimes.record(timings.getServiceNanos());
+        this.repositoryTimes.record(timings.getRepositoryNanos());
+        this.viewTimes.record(timings.getViewNanos());
+        if (timings.getTotalNanos() > this.slowRequestThresholdNanos) {
+            LOG.warn("Slow request: {}", timings);
+        } else if (LOG.isDebugEnabled()) {
+            LOG.debug("Request: {}", timings);
+        }
+    }
+
+    @ManagedAttribute
+    public long getRequestCount() {
+        return this.requestTimes.getCount();
+    }
+
+    /**
+     * Returns, for the whole request and for each layer, the mean, percentiles and maximum time per request in
+     * milliseconds.
+     */
+    @ManagedAttribute
+    public String[] getLayerTimes() {
+        return new String[]{
+            summary("request", this.requestTimes),
+            summary("handler", this.handlerTimes),
+            summary("service", this.serviceTimes),
+            summary("repository", this.repositoryTimes),
+            summary("view", this.viewTimes)
+        };
+    }
+
+    @ManagedOperation
+    public void reset() {
+        this.requestTimes.reset();
+        this.handlerTimes.reset();
+        this.serviceTimes.reset();
+        this.repositoryTimes.reset();
+        this.viewTimes.reset();
+    }
+
+    private static String summary(String layer, LatencyHistogram times) {
+        return String.format("%s mean=%.3f p50=%.3f p95=%.3f p99=%.3f max=%.3f", layer,
+            LatencyHistogram.toMillis(times.getMeanNanos()), LatencyHistogram.toMillis(times.getPercentileNanos(0.50)),
+            LatencyHistogram.toMillis(times.getPercentileNanos(0.95)),
+            LatencyHistogram.toMillis(times.getPercentileNanos(0.99)), LatencyHistogram.toMillis(times.getMaxNanos()));
+    }
+
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.util;
+
+/**
+ * Where the time of one request goes: in its handler method, in the services and repositories it calls, and in
+ * rendering its view. The timings of the request being handled are bound to the current thread, from
+ * {@link #start} to {@link #finish}; the {@link CallMonitoringAspect} adds the time of the outermost service and
+ * repository calls to them when they are present.
+ */
+public final class RequestTimings {
+
+    private static final ThreadLocal<RequestTimings> CURRENT = new ThreadLocal<>();
+
+    private final String request;
+
+    private final long start = System.nanoTime();
+
+    private long handlerEnd;
+
+    private long end;
+
+    private long serviceNanos;
+
+    private int serviceCalls;
+
+    private int serviceDepth;
+
+    private long repositoryNanos;
+
+    private int repositoryCalls;
+
+    private int repositoryDepth;
+
+    private RequestTimings(String request) {
+        this.request = request;
+    }
+
+    /**
+     * Starts timing a request on the current thread.
+     *
+     * @param request a description of the request, such as its method and URI
+     */
+    public static RequestTimings start(String request) {
+        RequestTimings timings = new RequestTimings(request);
+        CURRENT.set(timings);
+        return timings;
+    }
+
+    /**
+     * Returns the timings of the request handled by the current thread, or <code>null</code> if none.
+     */
+    public static RequestTimings current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Stops timing the request handled by the current thread and unbinds it.
+     *
+     * @return its timings, or <code>null</code> if none was started
+     */
+    public static RequestTimings finish() {
+        RequestTimings timings = CURRENT.get();
+        if (timings != null) {
+            CURRENT.remove();
+            timings.end = System.nanoTime();
+        }
+        return timings;
+    }
+
+    /**
+     * Marks the end of the handler method; what follows is view rendering.
+     */
+    public void handlerFinished() {
+        this.handlerEnd = System.nanoTime();
+    }
+
+    void serviceStarted() {
+        this.serviceDepth++;
+    }
+
+    void serviceFinished(long nanos) {
+        if (--this.serviceDepth == 0) {
+            this.serviceNanos += nanos;
+            this.serviceCalls++;
+        }
+    }
+
+    void repositoryStarted() {
+        this.repositoryDepth++;
+    }
+
+    void repositoryFinished(long nanos) {
+        if (--this.repositoryDepth == 0) {
+            this.repositoryNanos += nanos;
+            this.repositoryCalls++;
+        }
+    }
+
+    public String getRequest() {
+        return this.request;
+    }
+
+    public long getTotalNanos() {
+        return this.end - this.start;
+    }
+
+    /**
+     * Returns the time spent in the handler method, including its service calls; the whole request if the
+     * handler did not complete normally.
+     */
+    public long getHandlerNanos() {
+        return (this.handlerEnd != 0 ? this.handlerEnd : this.end) - this.start;
+    }
+
+    /**
+     * Returns the time spent rendering the view after the handler method.
+     */
+    public long getViewNanos() {
+        return (this.handlerEnd != 0 ? this.end - this.handlerEnd : 0);
+    }
+
+    public long getServiceNanos() {
+        return this.serviceNanos;
+    }
+
+    public int getServiceCalls() {
+        return this.serviceCalls;
+    }
+
+    public long getRepositoryNanos() {
+        return this.repositoryNanos;
+    }
+
+    public int getRepositoryCalls() {
+        return this.repositoryCalls;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s total=%.3fms handler=%.3fms service=%.3fms/%d repository=%.3fms/%d view=%.3fms",
+            this.request, LatencyHistogram.toMillis(getTotalNanos()), LatencyHistogram.toMillis(getHandlerNanos()),
+            LatencyHistogram.toMillis(this.serviceNanos), this.serviceCalls,
+            LatencyHistogram.toMillis(this.repositoryNanos), this.repositoryCalls,
+            LatencyHistogram.toMillis(getViewNanos()));
+    }
+
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.EntityManagerFactory;
+
+import net.sf.ehcache.Ehcache;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.ehcache.internal.EhcacheRegionFactory;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+/**
+ * Exposes the Hibernate second-level cache of the JPA profiles over JMX: hit, miss and put counts of the entity,
+ * collection and query caches, one line of statistics per region, to size the regions declared in
+ * <code>cache/hibernate-ehcache.xml</code>, and eviction of the regions after the tables have been changed outside
+ * the application. The counts stay at 0 unless Hibernate statistics are enabled.
+ */
+@ManagedResource("petclinic:type=SecondLevelCache")
+public class SecondLevelCacheMonitor {
+
+    private final SessionFactory sessionFactory;
+
+    public SecondLevelCacheMonitor(EntityManagerFactory entityManagerFactory) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+    }
+
+    @ManagedAttribute
+    public boolean isStatisticsEnabled() {
+        return statistics().isStatisticsEnabled();
+    }
+
+    @ManagedAttribute
+    public void setStatisticsEnabled(boolean statisticsEnabled) {
+        statistics().setStatisticsEnabled(statisticsEnabled);
+    }
+
+    @ManagedAttribute
+    public long getSecondLevelCacheHitCount() {
+        return statistics().getSecondLevelCacheHitCount();
+    }
+
+    @ManagedAttribute
+    public long getSecondLevelCacheMissCount() {
+        return statistics().getSecondLevelCacheMissCount();
+    }
+
+    @ManagedAttribute
+    public long getSecondLevelCachePutCount() {
+        return statistics().getSecondLevelCachePutCount();
+    }
+
+    @ManagedAttribute
+    public long getQueryCacheHitCount() {
+        return statistics().getQueryCacheHitCount();
+    }
+
+    @ManagedAttribute
+    public long getQueryCacheMissCount() {
+        return statistics().getQueryCacheMissCount();
+    }
+
+    @ManagedAttribute
+    public long getQueryCachePutCount() {
+        return statistics().getQueryCachePutCount();
+    }
+
+    /**
+     * Return one line of statistics per region: its hits, misses and puts, and the number of entries it holds out of
+     * its configured maximum (-1 when not known).
+     */
+    @ManagedAttribute
+    public String[] getRegionStatistics() {
+        Statistics statistics = statistics();
+        List<String> regions = new ArrayList<>();
+        for (String name : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics region = statistics.getCacheRegionStatistics(name);
+            if (region != null) {
+                Ehcache cache = ehcache(name);
+                regions.add(String.format("%s: hits=%d, misses=%d, puts=%d, entries=%d, maxEntries=%d", name,
+                    region.getHitCount(), region.getMissCount(), region.getPutCount(),
+                    (cache != null ? cache.getSize() : -1),
+                    (cache != null ? cache.getCacheConfiguration().getMaxEntriesLocalHeap() : -1)));
+            }
+        }
+        return regions.toArray(new String[0]);
+    }
+
+    /**
+     * Remove all entries of the named region, for instance after the table it caches has been changed by hand.
+     */
+    @ManagedOperation
+    public void evictRegion(String regionName) {
+        this.sessionFactory.getCache().evictRegion(regionName);
+    }
+
+    /**
+     * Remove all entries of every region, including the cached query results.
+     */
+    @ManagedOperation
+    public void evictAll() {
+        this.sessionFactory.getCache().evictAllRegions();
+    }
+
+    @ManagedOperation
+    public void resetStatistics() {
+        statistics().clear();
+    }
+
+    private Statistics statistics() {
+        return this.sessionFactory.getStatistics();
+    }
+
+    private Ehcache ehcache(String regionName) {
+        RegionFactory regionFactory = this.sessionFactory.unwrap(SessionFactoryImplementor.class).getCache()
+            .getRegionFactory();
+        if (regionFactory instanceof EhcacheRegionFactory) {
+            return ((EhcacheRegionFactory) regionFactory).getCacheManager().getEhcache(regionName);
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,297 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * <code>DataSource</code> proxy that times every statement executed through its connections and reports it to a
+ * {@link SlowQueryLog}, with the number of rows returned or updated and the types of its bind parameters.
+ * <p>
+ * The time of a query runs from its execution to the closing of its <code>ResultSet</code>, so that it includes
+ * fetching the rows, which are counted as they are read.
+ * <p>
+ * Recording an execution under the threshold allocates nothing, but the proxies do: each statement gets a handler
+ * and a proxy, and so does each <code>ResultSet</code>, eagerly, as counting its rows and timing its fetch requires
+ * seeing every <code>next</code> and <code>close</code> call. These are short-lived objects, negligible beside the
+ * statement and result set of the driver.
+ */
+public class SlowQueryDataSource extends DelegatingDataSource implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SlowQueryDataSource.class);
+
+    private static final Class<?>[] NO_PARAMETERS = new Class<?>[0];
+
+    private final SlowQueryLog slowQueryLog;
+
+    public SlowQueryDataSource(DataSource targetDataSource, SlowQueryLog slowQueryLog) {
+        super(targetDataSource);
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return proxy(Connection.class, new ConnectionHandler(obtainTargetDataSource().getConnection()));
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        Connection connection = obtainTargetDataSource().getConnection(username, password);
+        return proxy(Connection.class, new ConnectionHandler(connection));
+    }
+
+    /**
+     * Closes the target <code>DataSource</code>, if it can be closed, logging a failure to close it.
+     */
+    @Override
+    public void close() {
+        if (getTargetDataSource() instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) getTargetDataSource()).close();
+            } catch (Exception ex) {
+                LOG.warn("Could not close the target DataSource", ex);
+            }
+        }
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(SlowQueryDataSource.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getTargetException();
+        }
+    }
+
+    /**
+     * Handles the methods a proxy must not forward: identity based <code>equals</code> and <code>hashCode</code>.
+     *
+     * @return the result, or <code>this</code> handler if the method is to be forwarded
+     */
+    private static Object identityMethod(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            default:
+                return null;
+        }
+    }
+
+    private class ConnectionHandler implements InvocationHandler {
+
+        private final Connection target;
+
+        ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object identity = identityMethod(proxy, method, args);
+            if (identity != null) {
+                return identity;
+            }
+            Object result = SlowQueryDataSource.invoke(this.target, method, args);
+            switch (method.getName()) {
+                case "createStatement":
+                    return proxy(Statement.class, new StatementHandler((Statement) result, null));
+                case "prepareStatement":
+                    return proxy(PreparedStatement.class, new StatementHandler((Statement) result, (String) args[0]));
+                case "prepareCall":
+                    return proxy(CallableStatement.class, new StatementHandler((Statement) result, (String) args[0]));
+                default:
+                    return result;
+            }
+        }
+    }
+
+    private class StatementHandler implements InvocationHandler {
+
+        private final Statement target;
+
+        private final String sql;
+
+        private Class<?>[] parameterTypes = NO_PARAMETERS;
+
+        private int parameterCount;
+
+        private ResultSetHandler openResultSet;
+
+        StatementHandler(Statement target, String sql) {
+            this.target = target;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object identity = identityMethod(proxy, method, args);
+            if (identity != null) {
+                return identity;
+            }
+            String name = method.getName();
+            if (name.startsWith("execute")) {
+                return execute(method, args);
+            }
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                Class<?> type = (name.equals("setNull") || args[1] == null ? Void.class : args[1].getClass());
+                setParameter((Integer) args[0], type);
+            } else if (name.equals("clearParameters")) {
+                this.parameterCount = 0;
+                Arrays.fill(this.parameterTypes, null);
+            } else if (name.equals("close")) {
+                closeResultSet();
+            } else if (name.equals("getResultSet")) {
+                ResultSet resultSet = (ResultSet) SlowQueryDataSource.invoke(this.target, method, args);
+                return (resultSet != null && this.openResultSet != null ? this.openResultSet.wrap(resultSet) : resultSet);
+            }
+            return SlowQueryDataSource.invoke(this.target, method, args);
+        }
+
+        private Object execute(Method method, Object[] args) throws Throwable {
+            String sql = (args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : this.sql);
+            closeResultSet();
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = SlowQueryDataSource.invoke(this.target, method, args);
+            } catch (Throwable ex) {
+                record(sql, System.nanoTime() - start, -1);
+                throw ex;
+            }
+            if (result instanceof ResultSet) {
+                this.openResultSet = new ResultSetHandler(this, sql, start);
+                return this.openResultSet.wrap((ResultSet) result);
+            }
+            if (Boolean.TRUE.equals(result)) {
+                // a result set to be obtained through getResultSet
+                this.openResultSet = new ResultSetHandler(this, sql, start);
+                return result;
+            }
+            record(sql, System.nanoTime() - start, rows(result));
+            return result;
+        }
+
+        private void setParameter(int index, Class<?> type) {
+            if (index >= this.parameterTypes.length) {
+                this.parameterTypes = Arrays.copyOf(this.parameterTypes, Math.max(index + 1, 8));
+            }
+            this.parameterTypes[index] = type;
+            this.parameterCount = Math.max(this.parameterCount, index);
+        }
+
+        private void closeResultSet() {
+            if (this.openResultSet != null) {
+                this.openResultSet.finish();
+            }
+        }
+
+        void record(String sql, long nanos, long rows) {
+            slowQueryLog.record(sql, nanos, rows, this.parameterTypes, this.parameterCount);
+        }
+
+        private long rows(Object result) {
+            if (result instanceof Number) {
+                return ((Number) result).longValue();
+            }
+            long rows = -1;
+            if (result instanceof int[]) {
+                rows = 0;
+                for (int count : (int[]) result) {
+                    rows += Math.max(count, 0);
+                }
+            } else if (result instanceof long[]) {
+                rows = 0;
+                for (long count : (long[]) result) {
+                    rows += Math.max(count, 0);
+                }
+            }
+            return rows;
+        }
+    }
+
+    private static class ResultSetHandler implements InvocationHandler {
+
+        private final StatementHandler statement;
+
+        private final String sql;
+
+        private final long start;
+
+        private ResultSet target;
+
+        private long rows;
+
+        private boolean finished;
+
+        ResultSetHandler(StatementHandler statement, String sql, long start) {
+            this.statement = statement;
+            this.sql = sql;
+            this.start = start;
+        }
+
+        ResultSet wrap(ResultSet target) {
+            this.target = target;
+            return proxy(ResultSet.class, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object identity = identityMethod(proxy, method, args);
+            if (identity != null) {
+                return identity;
+            }
+            String name = method.getName();
+            if (name.equals("close")) {
+                finish();
+            }
+            Object result = SlowQueryDataSource.invoke(this.target, method, args);
+            if (name.equals("next") && Boolean.TRUE.equals(result)) {
+                this.rows++;
+            }
+            return result;
+        }
+
+        void finish() {
+            if (!this.finished) {
+                this.finished = true;
+                this.statement.record(this.sql, System.nanoTime() - this.start, this.rows);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,314 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.util;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+/**
+ * Execution statistics of the SQL statements run through a {@link SlowQueryDataSource}.
+ * <p>
+ * Every execution is counted, with its time and row count, against its SQL text; at most
+ * {@link #setMaxStatements maxStatements} distinct statements are tracked, any further ones being accumulated
+ * under <code>other</code>. Lists of placeholders, such as the expansion of an <code>IN (:ids)</code> parameter,
+ * are collapsed into <code>?, ...</code>, so that a statement is tracked once whatever the length of its lists.
+ * This path only allocates to collapse such lists. Executions slower than the threshold are also logged at
+ * warn level with the types of their bind parameters (never their values), and the slowest of them are kept,
+ * up to {@link #setCapacity capacity}, for inspection over JMX.
+ */
+@ManagedResource("petclinic:type=SlowQueryLog")
+public class SlowQueryLog {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SlowQueryLog.class);
+
+    private static final String OTHER = "other";
+
+    private static final String BATCH = "<batch>";
+
+    private static final String PLACEHOLDER_LIST = "?, ...";
+
+    private volatile long thresholdNanos = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private volatile int maxStatements = 500;
+
+    private final LongAdder executionCount = new LongAdder();
+
+    private final LongAdder slowExecutionCount = new LongAdder();
+
+    private final Map<String, StatementStatistics> statements = new ConcurrentHashMap<>();
+
+    private SlowQuery[] slowest = new SlowQuery[20];
+
+    private int slowestCount;
+
+    @ManagedAttribute
+    public long getThreshold() {
+        return TimeUnit.NANOSECONDS.toMillis(this.thresholdNanos);
+    }
+
+    /**
+     * Sets the execution time, in milliseconds, above which a statement is logged and kept as a slow query.
+     */
+    @ManagedAttribute
+    public void setThreshold(long millis) {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    @ManagedAttribute
+    public synchronized int getCapacity() {
+        return this.slowest.length;
+    }
+
+    /**
+     * Sets the number of slow queries kept; the slowest ones are retained.
+     */
+    @ManagedAttribute
+    public synchronized void setCapacity(int capacity) {
+        SlowQuery[] sorted = sortedSlowQueries();
+        this.slowestCount = Math.min(sorted.length, capacity);
+        this.slowest = Arrays.copyOf(sorted, capacity);
+    }
+
+    @ManagedAttribute
+    public int getMaxStatements() {
+        return this.maxStatements;
+    }
+
+    @ManagedAttribute
+    public void setMaxStatements(int maxStatements) {
+        this.maxStatements = maxStatements;
+    }
+
+    @ManagedAttribute
+    public long getExecutionCount() {
+        return this.executionCount.sum();
+    }
+
+    @ManagedAttribute
+    public long getSlowExecutionCount() {
+        return this.slowExecutionCount.sum();
+    }
+
+    /**
+     * Returns the slow queries kept, slowest first.
+     */
+    @ManagedAttribute
+    public synchronized String[] getSlowQueries() {
+        return Arrays.stream(sortedSlowQueries()).map(SlowQuery::toString).toArray(String[]::new);
+    }
+
+    /**
+     * Returns one line per statement with its execution count, time distribution in milliseconds and rows, the
+     * statements with the largest total time first.
+     */
+    @ManagedAttribute
+    public String[] getStatementStatistics() {
+        List<Map.Entry<String, StatementStatistics>> entries = new ArrayList<>(this.statements.entrySet());
+        entries.sort(Comparator.comparingLong(
+            (Map.Entry<String, StatementStatistics> entry) -> entry.getValue().times.getTotalNanos()).reversed());
+        return entries.stream().map(entry -> entry.getValue().toString(entry.getKey())).toArray(String[]::new);
+    }
+
+    @ManagedOperation
+    public synchronized void reset() {
+        this.executionCount.reset();
+        this.slowExecutionCount.reset();
+        this.statements.clear();
+        Arrays.fill(this.slowest, null);
+        this.slowestCount = 0;
+    }
+
+    /**
+     * Records one execution.
+     *
+     * @param sql            the SQL text of the statement, or <code>null</code> for a batch of statements added to a
+     *                       plain <code>Statement</code>, recorded as <code>&lt;batch&gt;</code>
+     * @param nanos          the execution time
+     * @param rows           the rows returned or updated, or -1 if unknown
+     * @param parameterTypes the bind parameter types by index (1-based, <code>null</code> entries for parameters
+     *                       not set and {@link Void} for SQL <code>NULL</code>), only read if the execution is slow
+     * @param parameterCount the highest bind parameter index set
+     */
+    public void record(String sql, long nanos, long rows, Class<?>[] parameterTypes, int parameterCount) {
+        if (sql == null) {
+            sql = BATCH;
+        }
+        this.executionCount.increment();
+        statementStatistics(sql).record(nanos, rows);
+        if (nanos > this.thresholdNanos) {
+            this.slowExecutionCount.increment();
+            SlowQuery query = new SlowQuery(sql, nanos, rows, parameterShape(parameterTypes, parameterCount));
+            LOG.warn("Slow statement: {}", query);
+            addSlowQuery(query);
+        }
+    }
+
+    private StatementStatistics statementStatistics(String sql) {
+        String statement = collapsePlaceholderLists(sql);
+        StatementStatistics statistics = this.statements.get(statement);
+        if (statistics != null) {
+            return statistics;
+        }
+        String key = (this.statements.size() < this.maxStatements ? statement : OTHER);
+        return this.statements.computeIfAbsent(key, k -> new StatementStatistics());
+    }
+
+    /**
+     * Replaces each list of two placeholders or more with {@link #PLACEHOLDER_LIST}, returning the SQL text itself
+     * if it has none.
+     */
+    static String collapsePlaceholderLists(String sql) {
+        StringBuilder collapsed = null;
+        int from = 0;
+        int placeholder = sql.indexOf('?');
+        while (placeholder >= 0) {
+            int end = placeholderListEnd(sql, placeholder);
+            if (end > placeholder + 1) {
+                if (collapsed == null) {
+                    collapsed = new StringBuilder(sql.length());
+                }
+                collapsed.append(sql, from, placeholder).append(PLACEHOLDER_LIST);
+                from = end;
+            }
+            placeholder = sql.indexOf('?', end);
+        }
+        return (collapsed != null ? collapsed.append(sql, from, sql.length()).toString() : sql);
+    }
+
+    /**
+     * Returns the index following the last placeholder of the comma-separated list starting at the given one.
+     */
+    private static int placeholderListEnd(String sql, int placeholder) {
+        int end = placeholder + 1;
+        while (true) {
+            int comma = skipWhitespace(sql, end);
+            if (comma == sql.length() || sql.charAt(comma) != ',') {
+                return end;
+            }
+            int next = skipWhitespace(sql, comma + 1);
+            if (next == sql.length() || sql.charAt(next) != '?') {
+                return end;
+            }
+            end = next + 1;
+        }
+    }
+
+    private static int skipWhitespace(String sql, int index) {
+        while (index < sql.length() && Character.isWhitespace(sql.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    private synchronized void addSlowQuery(SlowQuery query) {
+        if (this.slowest.length == 0) {
+            return;
+        }
+        if (this.slowestCount < this.slowest.length) {
+            this.slowest[this.slowestCount++] = query;
+            return;
+        }
+        int fastest = 0;
+        for (int i = 1; i < this.slowest.length; i++) {
+            if (this.slowest[i].nanos < this.slowest[fastest].nanos) {
+                fastest = i;
+            }
+        }
+        if (query.nanos > this.slowest[fastest].nanos) {
+            this.slowest[fastest] = query;
+        }
+    }
+
+    private SlowQuery[] sortedSlowQueries() {
+        SlowQuery[] sorted = Arrays.copyOf(this.slowest, this.slowestCount);
+        Arrays.sort(sorted, Comparator.comparingLong((SlowQuery query) -> query.nanos).reversed());
+        return sorted;
+    }
+
+    private static String parameterShape(Class<?>[] parameterTypes, int parameterCount) {
+        StringJoiner shape = new StringJoiner(", ", "[", "]");
+        for (int i = 1; i <= parameterCount && i < parameterTypes.length; i++) {
+            Class<?> type = parameterTypes[i];
+            shape.add(type == null ? "?" : type == Void.class ? "NULL" : type.getSimpleName());
+        }
+        return shape.toString();
+    }
+
+    private static final class StatementStatistics {
+
+        private final LatencyHistogram times = new LatencyHistogram();
+
+        private final LongAdder rows = new LongAdder();
+
+        void record(long nanos, long rows) {
+            this.times.record(nanos);
+            if (rows > 0) {
+                this.rows.add(rows);
+            }
+        }
+
+        String toString(String sql) {
+            return String.format("count=%d mean=%.3f p95=%.3f max=%.3f rows=%d %s", this.times.getCount(),
+                LatencyHistogram.toMillis(this.times.getMeanNanos()),
+                LatencyHistogram.toMillis(this.times.getPercentileNanos(0.95)),
+                LatencyHistogram.toMillis(this.times.getMaxNanos()), this.rows.sum(), sql);
+        }
+    }
+
+    private static final class SlowQuery {
+
+        private final String sql;
+
+        private final long nanos;
+
+        private final long rows;
+
+        private final String parameters;
+
+        private final Instant time = Instant.now();
+
+        private final String thread = Thread.currentThread().getName();
+
+        SlowQuery(String sql, long nanos, long rows, String parameters) {
+            this.sql = sql;
+            this.nanos = nanos;
+            this.rows = rows;
+            this.parameters = parameters;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%.3fms rows=%s parameters=%s at %s on %s: %s", LatencyHistogram.toMillis(this.nanos),
+                (this.rows >= 0 ? String.valueOf(this.rows) : "?"), this.parameters, this.time, this.thread, this.sql);
+        }
+    }
+
+}
@@ -15,13 +15,13 @@
  */
 package org.springframework.samples.petclinic.web;
 
-import java.util.Collection;
 import java.util.Map;
 
 import javax.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.OwnerSummaryPage;
 import org.springframework.samples.petclinic.service.ClinicService;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -31,6 +31,7 @@ import org.springframework.web.bind.annotation.InitBinder;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.ModelAndView;
 
 /**
@@ -43,6 +44,7 @@ import org.springframework.web.servlet.ModelAndView;
 public class OwnerController {
 
     public static final String VIEWS_OWNER_CREATE_OR_UPDATE_FORM = "owners/createOrUpdateOwnerForm";
+    public static final int OWNERS_PAGE_SIZE = 20;
     private final ClinicService clinicService;
 
 
@@ -79,27 +81,43 @@ public class OwnerController {
         return "owners/findOwners";
     }
 
+    /**
+     * Owners are listed {@link #OWNERS_PAGE_SIZE} at a time. The "next" links carry the last owner of the page as a
+     * keyset cursor (<code>afterLastName</code>, <code>afterId</code>); a plain <code>page</code> number is accepted
+     * as well.
+     */
     @RequestMapping(value = "/owners", method = RequestMethod.GET)
-    public String processFindForm(Owner owner, BindingResult result, Map<String, Object> model) {
+    public String processFindForm(Owner owner, BindingResult result, Map<String, Object> model,
+                                  @RequestParam(value = "page", defaultValue = "0") int page,
+                                  @RequestParam(value = "afterLastName", required = false) String afterLastName,
+                                  @RequestParam(value = "afterId", required = false) Integer afterId) {
 
-        // allow parameterless GET request for /owners to return all records
+        // allow parameterless GET request for /owners to list all records page by page
         if (owner.getLastName() == null) {
             owner.setLastName(""); // empty string signifies broadest possible search
         }
+        // page numbers beyond the int range of row offsets cannot hold owners anyway
+        page = Math.min(Math.max(page, 0), Integer.MAX_VALUE / OWNERS_PAGE_SIZE - 1);
 
-        // find owners by last name
-        Collection<Owner> results = this.clinicService.findOwnerByLastName(owner.getLastName());
-        if (results.isEmpty()) {
+        // find owners by last name; the list only needs owner columns and pet names
+        OwnerSummaryPage results;
+        if (afterLastName != null && afterId != null) {
+            results = this.clinicService.findOwnerSummariesByLastNameAfter(owner.getLastName(), afterLastName, afterId, OWNERS_PAGE_SIZE);
+        } else {
+            results = this.clinicService.findOwnerSummariesByLastName(owner.getLastName(), page, OWNERS_PAGE_SIZE);
+        }
+        if (page == 0 && results.getContent().isEmpty()) {
             // no owners found
             result.rejectValue("lastName", "notFound", "not found");
             return "owners/findOwners";
-        } else if (results.size() == 1) {
+        } else if (page == 0 && results.getContent().size() == 1 && results.isLastPage()) {
             // 1 owner found
-            owner = results.iterator().next();
-            return "redirect:/owners/" + owner.getId();
+            return "redirect:/owners/" + results.getCursor().getId();
         } else {
             // multiple owners found
-            model.put("selections", results);
+            model.put("selections", results.getContent());
+            model.put("ownersPage", results);
+            model.put("pageNumber", page);
             return "owners/ownersList";
         }
     }
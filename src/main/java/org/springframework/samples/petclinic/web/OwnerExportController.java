@@ -0,0 +1,61 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.web;
+
+import java.io.IOException;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.samples.petclinic.service.OwnerExportService;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+/**
+ * Full exports of the owners with their pets and visits. The data is written straight to the response while it is
+ * read from the database, see {@link OwnerExportService}.
+ */
+@Controller
+public class OwnerExportController {
+
+    private final OwnerExportService ownerExportService;
+
+
+    @Autowired
+    public OwnerExportController(OwnerExportService ownerExportService) {
+        this.ownerExportService = ownerExportService;
+    }
+
+    @RequestMapping(value = "/owners/export.csv", method = RequestMethod.GET)
+    public void exportCsv(HttpServletResponse response) throws IOException {
+        prepareResponse(response, "text/csv", "owners.csv");
+        this.ownerExportService.exportCsv(response.getWriter());
+    }
+
+    @RequestMapping(value = "/owners/export.json", method = RequestMethod.GET)
+    public void exportJson(HttpServletResponse response) throws IOException {
+        prepareResponse(response, "application/json", "owners.json");
+        this.ownerExportService.exportJson(response.getWriter());
+    }
+
+    private static void prepareResponse(HttpServletResponse response, String contentType, String fileName) {
+        response.setContentType(contentType + ";charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
+    }
+
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.web;
+
+import java.io.IOException;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.samples.petclinic.service.OwnerImportReport;
+import org.springframework.samples.petclinic.service.OwnerImportService;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+/**
+ * Bulk imports of owners with their pets, in the formats of {@link OwnerExportController}. The request body is read
+ * as it is imported, see {@link OwnerImportService}, and the response is the {@link OwnerImportReport} as JSON.
+ */
+@Controller
+public class OwnerImportController {
+
+    private final OwnerImportService ownerImportService;
+
+
+    @Autowired
+    public OwnerImportController(OwnerImportService ownerImportService) {
+        this.ownerImportService = ownerImportService;
+    }
+
+    @RequestMapping(value = "/owners/import.csv", method = RequestMethod.POST)
+    public @ResponseBody OwnerImportReport importCsv(HttpServletRequest request) throws IOException {
+        return this.ownerImportService.importCsv(request.getReader());
+    }
+
+    @RequestMapping(value = "/owners/import.json", method = RequestMethod.POST)
+    public @ResponseBody OwnerImportReport importJson(HttpServletRequest request) throws IOException {
+        return this.ownerImportService.importJson(request.getReader());
+    }
+
+}
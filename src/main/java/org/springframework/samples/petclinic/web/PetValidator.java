@@ -15,42 +15,23 @@
  */
 package org.springframework.samples.petclinic.web;
 
-import org.springframework.samples.petclinic.model.Pet;
-import org.springframework.util.StringUtils;
+import org.springframework.samples.petclinic.service.PetValidationRules;
 import org.springframework.validation.Errors;
 import org.springframework.validation.Validator;
 
 /**
- * <code>Validator</code> for <code>Pet</code> forms.
- * <p>
- * We're not using Bean Validation annotations here because it is easier to define such validation rule in Java.
- * </p>
+ * <code>Validator</code> for <code>Pet</code> forms, applying the {@link PetValidationRules} of the service layer.
  *
  * @author Ken Krebs
  * @author Juergen Hoeller
  */
 public class PetValidator implements Validator {
 
-    private static final String REQUIRED = "required";
+    private final PetValidationRules rules = new PetValidationRules();
 
     @Override
     public void validate(Object obj, Errors errors) {
-        Pet pet = (Pet) obj;
-        String name = pet.getName();
-        // name validation
-        if (!StringUtils.hasLength(name)) {
-            errors.rejectValue("name", REQUIRED, REQUIRED);
-        }
-
-        // type validation
-        if (pet.isNew() && pet.getType() == null) {
-            errors.rejectValue("type", REQUIRED, REQUIRED);
-        }
-
-        // birth date validation
-        if (pet.getBirthDate() == null) {
-            errors.rejectValue("birthDate", REQUIRED, REQUIRED);
-        }
+        this.rules.validate(obj, errors);
     }
 
     /**
@@ -58,7 +39,7 @@ public class PetValidator implements Validator {
      */
     @Override
     public boolean supports(Class<?> clazz) {
-        return Pet.class.isAssignableFrom(clazz);
+        return this.rules.supports(clazz);
     }
 
 
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.web;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+
+import org.springframework.samples.petclinic.util.ReadYourWrites;
+import org.springframework.samples.petclinic.util.ReplicaRoutingDataSource;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+/**
+ * Carries the time of the last write of a client from one of its requests to the next in its session, so that
+ * the {@link ReplicaRoutingDataSource} keeps its reads on the primary database while the replicas catch up with
+ * its writes: the redirect following a form submission reads what the form wrote.
+ * <p>
+ * Creates no session: a client without one is not known to have written.
+ */
+@Component
+public class ReadYourWritesInterceptor extends HandlerInterceptorAdapter {
+
+    static final String LAST_WRITE_ATTRIBUTE = ReadYourWritesInterceptor.class.getName() + ".lastWrite";
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        HttpSession session = request.getSession(false);
+        ReadYourWrites.bind(session != null ? (Long) session.getAttribute(LAST_WRITE_ATTRIBUTE) : null);
+        return true;
+    }
+
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+                           ModelAndView modelAndView) {
+        // before the view is rendered, as the response may be committed afterwards
+        Long lastWrite = ReadYourWrites.lastWrite();
+        if (lastWrite != null) {
+            request.getSession().setAttribute(LAST_WRITE_ATTRIBUTE, lastWrite);
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        ReadYourWrites.unbind();
+    }
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.web;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.samples.petclinic.util.RequestTimingMonitor;
+import org.springframework.samples.petclinic.util.RequestTimings;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+/**
+ * Times each request handled by a controller, splitting the handler method from the rendering of its view (JSP,
+ * XML marshalling or any other), and hands the {@link RequestTimings} to the {@link RequestTimingMonitor}.
+ * <p>
+ * Does nothing when no monitor is defined or when it is disabled.
+ */
+@Component
+public class RequestTimingInterceptor extends HandlerInterceptorAdapter {
+
+    private final RequestTimingMonitor monitor;
+
+    @Autowired
+    public RequestTimingInterceptor(ObjectProvider<RequestTimingMonitor> monitor) {
+        this.monitor = monitor.getIfAvailable();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (this.monitor != null && this.monitor.isEnabled()) {
+            RequestTimings.start(request.getMethod() + " " + request.getRequestURI());
+        }
+        return true;
+    }
+
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+                           ModelAndView modelAndView) {
+        RequestTimings timings = RequestTimings.current();
+        if (timings != null) {
+            timings.handlerFinished();
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        RequestTimings timings = RequestTimings.finish();
+        if (timings != null) {
+            this.monitor.record(timings);
+        }
+    }
+
+}
@@ -15,7 +15,9 @@
  */
 package org.springframework.samples.petclinic.web;
 
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import javax.validation.Valid;
 
@@ -60,6 +62,9 @@ public class VisitController {
      * - Make sure we always have fresh data
      * - Since we do not use the session scope, make sure that Pet object always has an id
      * (Even though id is not part of the form fields)
+     * <p>
+     * {@link ClinicService#findPetById} loads the pet with its visits and only the owner's header,
+     * so the visit pages never hydrate the owner's other pets.
      *
      * @param petId
      * @return Pet
@@ -89,9 +94,13 @@ public class VisitController {
         }
     }
 
+    // Spring MVC calls method loadPetWithVisit(...) before showVisits is called, so the pet is not loaded again
     @RequestMapping(value = "/owners/*/pets/{petId}/visits", method = RequestMethod.GET)
-    public String showVisits(@PathVariable int petId, Map<String, Object> model) {
-        model.put("visits", this.clinicService.findPetById(petId).getVisits());
+    public String showVisits(@ModelAttribute("visit") Visit visit, Map<String, Object> model) {
+        List<Visit> visits = visit.getPet().getVisits().stream()
+            .filter(existing -> !existing.isNew())
+            .collect(Collectors.toList());
+        model.put("visits", visits);
         return "visitList";
     }
 
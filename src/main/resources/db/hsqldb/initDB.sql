@@ -5,6 +5,7 @@ DROP TABLE visits IF EXISTS;
 DROP TABLE pets IF EXISTS;
 DROP TABLE types IF EXISTS;
 DROP TABLE owners IF EXISTS;
+DROP TABLE id_generators IF EXISTS;
 
 
 CREATE TABLE vets (
@@ -41,7 +42,7 @@ CREATE TABLE owners (
   city       VARCHAR(80),
   telephone  VARCHAR(20)
 );
-CREATE INDEX owners_last_name ON owners (last_name);
+CREATE INDEX owners_last_name ON owners (last_name, id);
 
 CREATE TABLE pets (
   id         INTEGER IDENTITY PRIMARY KEY,
@@ -62,3 +63,25 @@ CREATE TABLE visits (
 );
 ALTER TABLE visits ADD CONSTRAINT fk_visits_pets FOREIGN KEY (pet_id) REFERENCES pets (id);
 CREATE INDEX visits_pet_id ON visits (pet_id);
+
+-- Next id handed out by the JPA repositories for each table, which take them 50 at a time so that inserts can be
+-- batched. The identity columns are left for the JDBC repositories, and start above the ids of the JPA ones, so that
+-- both profiles can write to the same database: ids from 100 to 999999999 come from id_generators, ids from
+-- 1000000000 from the identity columns.
+CREATE TABLE id_generators (
+  name       VARCHAR(30) PRIMARY KEY,
+  next_value INTEGER NOT NULL
+);
+INSERT INTO id_generators VALUES ('vets', 100);
+INSERT INTO id_generators VALUES ('specialties', 100);
+INSERT INTO id_generators VALUES ('types', 100);
+INSERT INTO id_generators VALUES ('owners', 100);
+INSERT INTO id_generators VALUES ('pets', 100);
+INSERT INTO id_generators VALUES ('visits', 100);
+
+ALTER TABLE vets ALTER COLUMN id RESTART WITH 1000000000;
+ALTER TABLE specialties ALTER COLUMN id RESTART WITH 1000000000;
+ALTER TABLE types ALTER COLUMN id RESTART WITH 1000000000;
+ALTER TABLE owners ALTER COLUMN id RESTART WITH 1000000000;
+ALTER TABLE pets ALTER COLUMN id RESTART WITH 1000000000;
+ALTER TABLE visits ALTER COLUMN id RESTART WITH 1000000000;
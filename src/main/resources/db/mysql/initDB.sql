@@ -63,3 +63,26 @@ CREATE TABLE IF NOT EXISTS visits (
   description VARCHAR(255),
   FOREIGN KEY (pet_id) REFERENCES pets(id)
 ) engine=InnoDB;
+
+-- Next id handed out by the JPA repositories for each table, which take them 50 at a time so that inserts can be
+-- batched. The auto-increment columns are left for the JDBC repositories, and start above the ids of the JPA ones,
+-- so that both profiles can write to the same database: ids from 100 to 999999999 come from id_generators, ids from
+-- 1000000000 from the auto-increment columns (MySQL keeps a counter already beyond that).
+CREATE TABLE IF NOT EXISTS id_generators (
+  name VARCHAR(30) NOT NULL PRIMARY KEY,
+  next_value INT(4) UNSIGNED NOT NULL
+) engine=InnoDB;
+
+INSERT IGNORE INTO id_generators VALUES ('vets', 100);
+INSERT IGNORE INTO id_generators VALUES ('specialties', 100);
+INSERT IGNORE INTO id_generators VALUES ('types', 100);
+INSERT IGNORE INTO id_generators VALUES ('owners', 100);
+INSERT IGNORE INTO id_generators VALUES ('pets', 100);
+INSERT IGNORE INTO id_generators VALUES ('visits', 100);
+
+ALTER TABLE vets AUTO_INCREMENT = 1000000000;
+ALTER TABLE specialties AUTO_INCREMENT = 1000000000;
+ALTER TABLE types AUTO_INCREMENT = 1000000000;
+ALTER TABLE owners AUTO_INCREMENT = 1000000000;
+ALTER TABLE pets AUTO_INCREMENT = 1000000000;
+ALTER TABLE visits AUTO_INCREMENT = 1000000000;
@@ -7,8 +7,6 @@ CREATE TABLE IF NOT EXISTS vets (
 
 CREATE INDEX IF NOT EXISTS idx_vets_last_name ON vets (last_name);
 
-ALTER SEQUENCE vets_id_seq RESTART WITH 100;
-
 
 CREATE TABLE IF NOT EXISTS specialties (
   id SERIAL,
@@ -18,8 +16,6 @@ CREATE TABLE IF NOT EXISTS specialties (
 
 CREATE INDEX IF NOT EXISTS idx_specialties_name ON specialties (name);
 
-ALTER SEQUENCE specialties_id_seq RESTART WITH 100;
-
 
 CREATE TABLE IF NOT EXISTS vet_specialties (
   vet_id INT NOT NULL,
@@ -30,7 +26,6 @@ CREATE TABLE IF NOT EXISTS vet_specialties (
 );
 
 
-
 CREATE TABLE IF NOT EXISTS types (
   id SERIAL,
   name VARCHAR(80),
@@ -39,7 +34,6 @@ CREATE TABLE IF NOT EXISTS types (
 
 CREATE INDEX IF NOT EXISTS idx_types_name ON types (name);
 
-ALTER SEQUENCE types_id_seq RESTART WITH 100;
 
 CREATE TABLE IF NOT EXISTS owners (
   id SERIAL,
@@ -51,9 +45,7 @@ CREATE TABLE IF NOT EXISTS owners (
   CONSTRAINT pk_owners PRIMARY KEY (id)
 );
 
-CREATE INDEX IF NOT EXISTS idx_owners_last_name ON owners (last_name);
-
-ALTER SEQUENCE owners_id_seq RESTART WITH 100;
+CREATE INDEX IF NOT EXISTS idx_owners_last_name ON owners (last_name, id);
 
 
 CREATE TABLE IF NOT EXISTS pets (
@@ -69,8 +61,6 @@ CREATE TABLE IF NOT EXISTS pets (
 
 CREATE INDEX IF NOT EXISTS idx_pets_name ON pets (name);
 
-ALTER SEQUENCE pets_id_seq RESTART WITH 100;
-
 
 CREATE TABLE IF NOT EXISTS visits (
   id SERIAL,
@@ -81,4 +71,27 @@ CREATE TABLE IF NOT EXISTS visits (
   CONSTRAINT pk_visits PRIMARY KEY (id)
 );
 
-ALTER SEQUENCE visits_id_seq RESTART WITH 100;
+
+-- Next id handed out by the JPA repositories for each table, which take them 50 at a time so that inserts can be
+-- batched. The serial columns are left for the JDBC repositories, and start above the ids of the JPA ones, so that
+-- both profiles can write to the same database: ids from 100 to 999999999 come from id_generators, ids from
+-- 1000000000 from the serial columns. Sequences already beyond that are left where they are.
+CREATE TABLE IF NOT EXISTS id_generators (
+  name VARCHAR(30),
+  next_value INT NOT NULL,
+  CONSTRAINT pk_id_generators PRIMARY KEY (name)
+);
+
+INSERT INTO id_generators VALUES ('vets', 100) ON CONFLICT DO NOTHING;
+INSERT INTO id_generators VALUES ('specialties', 100) ON CONFLICT DO NOTHING;
+INSERT INTO id_generators VALUES ('types', 100) ON CONFLICT DO NOTHING;
+INSERT INTO id_generators VALUES ('owners', 100) ON CONFLICT DO NOTHING;
+INSERT INTO id_generators VALUES ('pets', 100) ON CONFLICT DO NOTHING;
+INSERT INTO id_generators VALUES ('visits', 100) ON CONFLICT DO NOTHING;
+
+SELECT setval('vets_id_seq', GREATEST(1000000000, (SELECT COALESCE(MAX(id), 0) + 1 FROM vets)), false);
+SELECT setval('specialties_id_seq', GREATEST(1000000000, (SELECT COALESCE(MAX(id), 0) + 1 FROM specialties)), false);
+SELECT setval('types_id_seq', GREATEST(1000000000, (SELECT COALESCE(MAX(id), 0) + 1 FROM types)), false);
+SELECT setval('owners_id_seq', GREATEST(1000000000, (SELECT COALESCE(MAX(id), 0) + 1 FROM owners)), false);
+SELECT setval('pets_id_seq', GREATEST(1000000000, (SELECT COALESCE(MAX(id), 0) + 1 FROM pets)), false);
+SELECT setval('visits_id_seq', GREATEST(1000000000, (SELECT COALESCE(MAX(id), 0) + 1 FROM visits)), false);
@@ -31,4 +31,6 @@
 
     <br/>
     <a class="btn btn-default" href='<spring:url value="/owners/new" htmlEscape="true"/>'>Add Owner</a>
+    <a class="btn btn-default" href='<spring:url value="/owners/export.csv" htmlEscape="true"/>'>Export CSV</a>
+    <a class="btn btn-default" href='<spring:url value="/owners/export.json" htmlEscape="true"/>'>Export JSON</a>
 </petclinic:layout>
@@ -37,12 +37,33 @@
                     <c:out value="${owner.telephone}"/>
                 </td>
                 <td>
-                    <c:forEach var="pet" items="${owner.pets}">
-                        <c:out value="${pet.name} "/>
+                    <c:forEach var="petName" items="${owner.petNames}">
+                        <c:out value="${petName} "/>
                     </c:forEach>
                 </td>
             </tr>
         </c:forEach>
         </tbody>
     </table>
+
+    <c:if test="${pageNumber > 0 or not ownersPage.lastPage}">
+        <ul class="pager">
+            <c:if test="${pageNumber > 0}">
+                <spring:url value="/owners" var="firstUrl">
+                    <spring:param name="lastName" value="${owner.lastName}"/>
+                </spring:url>
+                <li class="previous"><a href="${fn:escapeXml(firstUrl)}">First page</a></li>
+            </c:if>
+            <li>Page <c:out value="${pageNumber + 1}"/></li>
+            <c:if test="${not ownersPage.lastPage}">
+                <spring:url value="/owners" var="nextUrl">
+                    <spring:param name="lastName" value="${owner.lastName}"/>
+                    <spring:param name="afterLastName" value="${ownersPage.cursor.lastName}"/>
+                    <spring:param name="afterId" value="${ownersPage.cursor.id}"/>
+                    <spring:param name="page" value="${pageNumber + 1}"/>
+                </spring:url>
+                <li class="next"><a href="${fn:escapeXml(nextUrl)}">Next page</a></li>
+            </c:if>
+        </ul>
+    </c:if>
 </petclinic:layout>
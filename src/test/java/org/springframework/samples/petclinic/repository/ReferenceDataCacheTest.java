@@ -0,0 +1,163 @@
+package org.springframework.samples.petclinic.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.orm.ObjectRetrievalFailureException;
+import org.springframework.samples.petclinic.model.PetType;
+import org.springframework.samples.petclinic.model.Specialty;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+
+@ExtendWith(MockitoExtension.class)
+class ReferenceDataCacheTest {
+
+    @Mock
+    ObjectProvider<PetRepository> petRepositoryProvider;
+    @Mock
+    ObjectProvider<VetRepository> vetRepositoryProvider;
+    @Mock
+    ObjectProvider<PlatformTransactionManager> transactionManagerProvider;
+    @Mock
+    PetRepository petRepository;
+    @Mock
+    VetRepository vetRepository;
+
+    ReferenceDataCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ReferenceDataCache(petRepositoryProvider, vetRepositoryProvider);
+    }
+
+    @Test
+    void getPetTypes_shouldLoadOnlyOnce() {
+        //GIVEN
+        List<PetType> petTypes = Arrays.asList(petType(1, "cat"), petType(2, "dog"));
+        given(petRepositoryProvider.getObject()).willReturn(petRepository);
+        given(petRepository.findPetTypes()).willReturn(petTypes);
+
+        //WHEN
+        cache.getPetTypes();
+        PetType dog = cache.getPetType(2);
+        PetType cat = cache.findPetTypeByName("cat");
+
+        //THEN
+        assertThat(cache.getPetTypes()).containsExactlyElementsOf(petTypes);
+        assertThat(dog).isSameAs(petTypes.get(1));
+        assertThat(cat).isSameAs(petTypes.get(0));
+        assertThat(cache.findPetTypeByName("hamster")).isNull();
+        then(petRepository).should().findPetTypes();
+        then(petRepository).shouldHaveNoMoreInteractions();
+        assertThat(cache.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    void invalidatePetTypes_shouldReloadOnNextAccess() {
+        //GIVEN
+        given(petRepositoryProvider.getObject()).willReturn(petRepository);
+        given(petRepository.findPetTypes())
+            .willReturn(Arrays.asList(petType(1, "cat")))
+            .willReturn(Arrays.asList(petType(1, "cat"), petType(7, "hamster")));
+        cache.getPetTypes();
+
+        //WHEN
+        cache.invalidatePetTypes();
+
+        //THEN
+        assertThat(cache.findPetTypeByName("hamster").getId()).isEqualTo(7);
+        then(petRepository).should(times(2)).findPetTypes();
+        then(vetRepositoryProvider).shouldHaveZeroInteractions();
+    }
+
+    @Test
+    void findPetTypeByName_shouldReloadOnlySnapshotsOlderThanInterval() {
+        //GIVEN
+        given(petRepositoryProvider.getObject()).willReturn(petRepository);
+        given(petRepository.findPetTypes())
+            .willReturn(Arrays.asList(petType(1, "cat")))
+            .willReturn(Arrays.asList(petType(1, "cat"), petType(7, "hamster")));
+        cache.getPetTypes();
+
+        //WHEN
+        PetType beforeInterval = cache.findPetTypeByName("hamster");
+        cache.setNameMissReloadInterval(0);
+        PetType afterInterval = cache.findPetTypeByName("hamster");
+
+        //THEN
+        assertThat(beforeInterval).isNull();
+        assertThat(afterInterval.getId()).isEqualTo(7);
+        then(petRepository).should(times(2)).findPetTypes();
+    }
+
+    @Test
+    void getPetTypes_shouldLoadInReadOnlyTransaction() {
+        //GIVEN
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        TransactionStatus status = mock(TransactionStatus.class);
+        given(transactionManagerProvider.getIfAvailable()).willReturn(transactionManager);
+        given(transactionManager.getTransaction(any())).willReturn(status);
+        given(petRepositoryProvider.getObject()).willReturn(petRepository);
+        given(petRepository.findPetTypes()).willReturn(Arrays.asList(petType(1, "cat")));
+        cache = new ReferenceDataCache(petRepositoryProvider, vetRepositoryProvider, null, transactionManagerProvider);
+
+        //WHEN
+        cache.getPetTypes();
+        PetType cat = cache.findPetTypeByName("cat");
+
+        //THEN
+        assertThat(cat.getId()).isEqualTo(1);
+        then(transactionManager).should().getTransaction(argThat(TransactionDefinition::isReadOnly));
+        then(transactionManager).should().commit(status);
+        then(transactionManager).shouldHaveNoMoreInteractions();
+    }
+
+    @Test
+    void getSpecialty_shouldReloadOnceWhenIdIsMissing() {
+        //GIVEN
+        Specialty dentistry = specialty(3, "dentistry");
+        given(vetRepositoryProvider.getObject()).willReturn(vetRepository);
+        given(vetRepository.findSpecialties())
+            .willReturn(Arrays.asList(specialty(1, "radiology")))
+            .willReturn(Arrays.asList(specialty(1, "radiology"), dentistry));
+        cache.getSpecialties();
+
+        //WHEN
+        Specialty found = cache.getSpecialty(3);
+
+        //THEN
+        assertThat(found).isSameAs(dentistry);
+        assertThrows(ObjectRetrievalFailureException.class, () -> cache.getSpecialty(4));
+        then(vetRepository).should(times(3)).findSpecialties();
+    }
+
+    private static Specialty specialty(int id, String name) {
+        Specialty specialty = new Specialty();
+        specialty.setId(id);
+        specialty.setName(name);
+        return specialty;
+    }
+
+    private static PetType petType(int id, String name) {
+        PetType petType = new PetType();
+        petType.setId(id);
+        petType.setName(name);
+        return petType;
+    }
+}
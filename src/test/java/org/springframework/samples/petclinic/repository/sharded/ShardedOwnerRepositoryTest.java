@@ -0,0 +1,172 @@
+package org.springframework.samples.petclinic.repository.sharded;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.OwnerSummary;
+import org.springframework.samples.petclinic.model.OwnerSummaryPage;
+import org.springframework.samples.petclinic.model.PetType;
+import org.springframework.samples.petclinic.repository.BulkWrites;
+import org.springframework.samples.petclinic.repository.ReferenceDataCache;
+import org.springframework.samples.petclinic.util.PooledDataSource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ShardedOwnerRepositoryTest {
+
+    @Mock
+    ReferenceDataCache referenceDataCache;
+
+    PooledDataSource dataSource;
+
+    Shards shards;
+
+    ShardedOwnerRepository repository;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        PetType cat = new PetType();
+        cat.setId(1);
+        cat.setName("cat");
+        given(referenceDataCache.getPetType(anyInt())).willReturn(cat);
+        dataSource = new PooledDataSource();
+        dataSource.setType(PooledDataSource.SIMPLE);
+        dataSource.setDriverClassName("org.hsqldb.jdbcDriver");
+        dataSource.setUrl("jdbc:hsqldb:mem:sharded");
+        dataSource.setUsername("sa");
+        dataSource.setPassword("");
+        dataSource.setProperties(new Properties());
+        dataSource.afterPropertiesSet();
+        shards = new Shards(dataSource);
+        shards.setShardUrls(new String[]{"jdbc:hsqldb:mem:sharded0", "jdbc:hsqldb:mem:sharded1", "jdbc:hsqldb:mem:sharded2"});
+        shards.setShardInitScripts(new String[]{"db/hsqldb/initDB.sql", "db/hsqldb/populateDB.sql"});
+        shards.afterPropertiesSet();
+        repository = new ShardedOwnerRepository(shards, referenceDataCache, new BulkWrites(500));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        shards.destroy();
+    }
+
+    @Test
+    void findByLastName_shouldMergeOwnersOfAllShards() {
+        //WHEN
+        Collection<Owner> owners = repository.findByLastName("");
+
+        //THEN
+        assertThat(owners).hasSize(10);
+        assertThat(owners).extracting(Owner::getLastName).isSorted();
+        assertThat(owners.stream().mapToInt(owner -> owner.getPets().size()).sum()).isEqualTo(13);
+        for (Shard shard : shards.getShards()) {
+            assertThat(shard.getJdbcTemplate().queryForList("SELECT id FROM owners", Integer.class))
+                .isNotEmpty().allMatch(id -> id % 3 == shard.getIndex());
+        }
+    }
+
+    @Test
+    void save_shouldPlaceNewOwnersOnShardsInTurn() {
+        //GIVEN
+        List<Owner> owners = Arrays.asList(owner("Zeta"), owner("Zeta"), owner("Zeta"));
+
+        //WHEN
+        for (Owner owner : owners) {
+            repository.save(owner);
+        }
+
+        //THEN
+        assertThat(owners).extracting(owner -> owner.getId() % 3).containsExactlyInAnyOrder(0, 1, 2);
+        for (Owner owner : owners) {
+            assertThat(repository.findById(owner.getId()).getLastName()).isEqualTo("Zeta");
+        }
+        assertThat(repository.findByLastName("Zeta")).extracting(Owner::getId)
+            .containsExactlyElementsOf(owners.stream().map(Owner::getId).sorted().collect(Collectors.toList()));
+    }
+
+    @Test
+    void saveAll_shouldRejectExistingOwners() {
+        //GIVEN
+        Owner existing = repository.findById(1);
+
+        //THEN
+        assertThrows(IllegalArgumentException.class, () -> repository.saveAll(Arrays.asList(owner("Zeta"), existing)));
+        assertThat(repository.findByLastName("Zeta")).isEmpty();
+    }
+
+    @Test
+    void findSummariesByLastName_shouldPageOverAllShards() {
+        //WHEN
+        OwnerSummaryPage first = repository.findSummariesByLastName("", 0, 4);
+        OwnerSummaryPage last = repository.findSummariesByLastName("", 2, 4);
+        List<OwnerSummary> byCursor = new ArrayList<>(first.getContent());
+        OwnerSummaryPage page = first;
+        while (!page.isLastPage()) {
+            page = repository.findSummariesByLastNameAfter("", page.getCursor().getLastName(), page.getCursor().getId(), 4);
+            byCursor.addAll(page.getContent());
+        }
+
+        //THEN
+        assertThat(first.getContent()).hasSize(4);
+        assertThat(first.isLastPage()).isFalse();
+        assertThat(last.getContent()).hasSize(2);
+        assertThat(last.isLastPage()).isTrue();
+        assertThat(byCursor).extracting(OwnerSummary::getId)
+            .containsExactlyElementsOf(repository.findSummariesByLastName("", 0, 10).getContent().stream()
+                .map(OwnerSummary::getId).collect(Collectors.toList()));
+        assertThrows(IllegalArgumentException.class,
+            () -> repository.findSummariesByLastName("", Integer.MAX_VALUE / 4, 4));
+        assertThat(byCursor).hasSize(10).extracting(OwnerSummary::getLastName).isSorted();
+    }
+
+    @Test
+    void findSummariesByLastName_shouldMergeLastNamesIgnoringCase() {
+        //GIVEN
+        List<Owner> owners = Arrays.asList(owner("adams"), owner("Brown"), owner("Zeta"), owner("Baker"));
+        for (Owner owner : owners) {
+            repository.save(owner);
+        }
+        // adams and Baker on one shard, Brown on another
+        assertThat(owners.get(0).getId() % 3).isEqualTo(owners.get(3).getId() % 3)
+            .isNotEqualTo(owners.get(1).getId() % 3);
+
+        //WHEN
+        OwnerSummaryPage first = repository.findSummariesByLastName("", 0, 3);
+        OwnerSummaryPage next = repository.findSummariesByLastNameAfter("", first.getCursor().getLastName(),
+            first.getCursor().getId(), 3);
+        Collection<Owner> all = repository.findByLastName("");
+
+        //THEN
+        assertThat(first.getContent()).extracting(OwnerSummary::getLastName).containsExactly("adams", "Baker", "Black");
+        assertThat(next.getContent()).extracting(OwnerSummary::getLastName).containsExactly("Brown", "Coleman", "Davis");
+        assertThat(all).extracting(Owner::getLastName).isSortedAccordingTo(String.CASE_INSENSITIVE_ORDER);
+    }
+
+    private static Owner owner(String lastName) {
+        Owner owner = new Owner();
+        owner.setFirstName("Test");
+        owner.setLastName(lastName);
+        owner.setAddress("1 Test Street");
+        owner.setCity("Madison");
+        owner.setTelephone("6085551234");
+        return owner;
+    }
+
+}
@@ -0,0 +1,117 @@
+package org.springframework.samples.petclinic.repository.sharded;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.orm.ObjectRetrievalFailureException;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.model.PetType;
+import org.springframework.samples.petclinic.repository.BulkWrites;
+import org.springframework.samples.petclinic.repository.ReferenceDataCache;
+import org.springframework.samples.petclinic.util.PooledDataSource;
+
+import java.time.LocalDate;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ShardedPetRepositoryTest {
+
+    @Mock
+    ReferenceDataCache referenceDataCache;
+
+    PooledDataSource dataSource;
+
+    Shards shards;
+
+    ShardedPetRepository repository;
+
+    PetType cat;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        cat = new PetType();
+        cat.setId(1);
+        cat.setName("cat");
+        given(referenceDataCache.getPetType(anyInt())).willReturn(cat);
+        dataSource = new PooledDataSource();
+        dataSource.setType(PooledDataSource.SIMPLE);
+        dataSource.setDriverClassName("org.hsqldb.jdbcDriver");
+        dataSource.setUrl("jdbc:hsqldb:mem:shardedpets");
+        dataSource.setUsername("sa");
+        dataSource.setPassword("");
+        dataSource.setProperties(new Properties());
+        dataSource.afterPropertiesSet();
+        shards = new Shards(dataSource);
+        shards.setShardUrls(new String[]{"jdbc:hsqldb:mem:shardedpets0", "jdbc:hsqldb:mem:shardedpets1", "jdbc:hsqldb:mem:shardedpets2"});
+        shards.setShardInitScripts(new String[]{"db/hsqldb/initDB.sql", "db/hsqldb/populateDB.sql"});
+        shards.afterPropertiesSet();
+        repository = new ShardedPetRepository(dataSource, shards, referenceDataCache, new BulkWrites(500));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        shards.destroy();
+        dataSource.close();
+    }
+
+    @Test
+    void findById_shouldFindPetOnItsHomeShard() {
+        //WHEN
+        Pet pet = repository.findById(1);
+
+        //THEN
+        assertThat(pet.getName()).isEqualTo("Leo");
+        assertThat(pet.getOwner().getId()).isEqualTo(1);
+    }
+
+    @Test
+    void findById_shouldFallBackToOtherShards() {
+        //WHEN
+        Pet pet = repository.findById(4);
+
+        //THEN
+        assertThat(pet.getName()).isEqualTo("Jewel");
+        assertThat(pet.getOwner().getId()).isEqualTo(3);
+        assertThat(pet.getOwner().getLastName()).isEqualTo("Rodriquez");
+    }
+
+    @Test
+    void findById_shouldThrowWhenOnNoShard() {
+        //WHEN
+
+        //THEN
+        assertThrows(ObjectRetrievalFailureException.class, () -> repository.findById(999));
+    }
+
+    @Test
+    void save_shouldInsertNewPetOnShardOfItsOwner() {
+        //GIVEN
+        Owner owner = repository.findById(4).getOwner();
+        Pet pet = new Pet();
+        pet.setName("Tom");
+        pet.setBirthDate(LocalDate.of(2015, 1, 1));
+        pet.setType(cat);
+        owner.addPet(pet);
+
+        //WHEN
+        repository.save(pet);
+
+        //THEN
+        assertThat(pet.getId() % 3).isEqualTo(shards.shardOf(owner.getId()).getIndex());
+        assertThat(repository.findById(pet.getId()).getName()).isEqualTo("Tom");
+        assertThat(repository.findById(pet.getId()).getOwner().getId()).isEqualTo(owner.getId());
+    }
+
+}
@@ -0,0 +1,112 @@
+package org.springframework.samples.petclinic.repository.sharded;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.model.Visit;
+import org.springframework.samples.petclinic.repository.BulkWrites;
+import org.springframework.samples.petclinic.repository.ReferenceDataCache;
+import org.springframework.samples.petclinic.util.PooledDataSource;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+class ShardedVisitRepositoryTest {
+
+    PooledDataSource dataSource;
+
+    Shards shards;
+
+    ShardedVisitRepository repository;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dataSource = new PooledDataSource();
+        dataSource.setType(PooledDataSource.SIMPLE);
+        dataSource.setDriverClassName("org.hsqldb.jdbcDriver");
+        dataSource.setUrl("jdbc:hsqldb:mem:shardedvisits");
+        dataSource.setUsername("sa");
+        dataSource.setPassword("");
+        dataSource.setProperties(new Properties());
+        dataSource.afterPropertiesSet();
+        shards = new Shards(dataSource);
+        shards.setShardUrls(new String[]{"jdbc:hsqldb:mem:shardedvisits0", "jdbc:hsqldb:mem:shardedvisits1", "jdbc:hsqldb:mem:shardedvisits2"});
+        shards.setShardInitScripts(new String[]{"db/hsqldb/initDB.sql", "db/hsqldb/populateDB.sql"});
+        shards.afterPropertiesSet();
+        repository = new ShardedVisitRepository(shards, mock(ReferenceDataCache.class), new BulkWrites(500));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        shards.destroy();
+        dataSource.close();
+    }
+
+    @Test
+    void save_shouldInsertVisitOnShardOfItsPet() {
+        //GIVEN
+        Owner owner = new Owner();
+        owner.setId(3);
+        Pet pet = pet(4);
+        owner.addPet(pet);
+        Visit visit = visit(pet, "rabies shot");
+
+        //WHEN
+        repository.save(visit);
+
+        //THEN
+        assertThat(visit.getId() % 3).isEqualTo(0);
+        assertThat(repository.findByPetId(4)).extracting(Visit::getDescription).containsExactly("rabies shot");
+    }
+
+    @Test
+    void saveAll_shouldFindShardOfPetsWithoutOwner() {
+        //GIVEN
+        Visit leo = visit(pet(1), "checkup");
+        Visit jewel = visit(pet(4), "neutered");
+
+        //WHEN
+        repository.saveAll(Arrays.asList(leo, jewel));
+
+        //THEN
+        assertThat(leo.getId() % 3).isEqualTo(1);
+        assertThat(jewel.getId() % 3).isEqualTo(0);
+        assertThat(repository.findByPetId(1)).extracting(Visit::getDescription).containsExactly("checkup");
+        assertThat(repository.findByPetId(4)).extracting(Visit::getDescription).containsExactly("neutered");
+    }
+
+    @Test
+    void save_shouldRejectUpdate() {
+        //GIVEN
+        Visit visit = visit(pet(1), "checkup");
+        visit.setId(1);
+
+        //WHEN
+
+        //THEN
+        assertThrows(UnsupportedOperationException.class, () -> repository.save(visit));
+        assertThrows(UnsupportedOperationException.class, () -> repository.saveAll(Arrays.asList(visit)));
+    }
+
+    private static Pet pet(int id) {
+        Pet pet = new Pet();
+        pet.setId(id);
+        return pet;
+    }
+
+    private static Visit visit(Pet pet, String description) {
+        Visit visit = new Visit();
+        visit.setPet(pet);
+        visit.setDate(LocalDate.of(2019, 1, 1));
+        visit.setDescription(description);
+        return visit;
+    }
+
+}
@@ -0,0 +1,151 @@
+package org.springframework.samples.petclinic.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.repository.OwnerRepository;
+import org.springframework.samples.petclinic.repository.PetRepository;
+import org.springframework.samples.petclinic.repository.ReferenceDataCache;
+import org.springframework.samples.petclinic.repository.VetRepository;
+import org.springframework.samples.petclinic.repository.VisitRepository;
+import org.springframework.samples.petclinic.util.ReadYourWrites;
+import org.springframework.samples.petclinic.util.ReplicaRoutingDataSource;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Runs the cached lookups of {@link ClinicServiceImpl} in transactions on a {@link ReplicaRoutingDataSource} whose
+ * replica lags behind the primary.
+ */
+@SpringJUnitConfig(ClinicServiceImplReplicaTest.Config.class)
+class ClinicServiceImplReplicaTest {
+
+    @Autowired
+    ClinicService service;
+
+    @Autowired
+    PetRepository petRepository;
+
+    @Autowired
+    ReplicaRoutingDataSource dataSource;
+
+    @Autowired
+    Config config;
+
+    @AfterEach
+    void tearDown() {
+        ReadYourWrites.unbind();
+    }
+
+    @Test
+    void findPetById_shouldFillCacheFromPrimaryAfterSaveOfAnotherClient() {
+        //GIVEN
+        Pet leo = new Pet();
+        leo.setId(7);
+        leo.setName("Leo");
+        willAnswer(invocation -> database()).given(petRepository).save(any(Pet.class));
+        given(petRepository.findById(7)).willAnswer(invocation -> {
+            Pet pet = new Pet();
+            pet.setId(7);
+            pet.setName(database() == config.primaryConnection ? "Leo" : "Basil");
+            return pet;
+        });
+
+        //WHEN
+        ReadYourWrites.bind(null);
+        service.savePet(leo);
+        Long writerLastWrite = ReadYourWrites.unbind();
+
+        ReadYourWrites.bind(null);
+        Pet seenByOtherClient = service.findPetById(7);
+        ReadYourWrites.unbind();
+
+        ReadYourWrites.bind(writerLastWrite);
+        Pet seenByWriter = service.findPetById(7);
+        ReadYourWrites.unbind();
+
+        //THEN
+        assertThat(writerLastWrite).isNotNull();
+        assertThat(seenByOtherClient.getName()).isEqualTo("Leo");
+        assertThat(seenByWriter.getName()).isEqualTo("Leo");
+        then(petRepository).should().findById(7);
+        assertThat(dataSource.getReplicaConnectionCount()).isZero();
+        assertThat(dataSource.getReadYourWritesCount()).isZero();
+    }
+
+    /**
+     * Returns the database the connection of the current transaction goes to, choosing it if not chosen yet.
+     */
+    private Connection database() {
+        return ((ConnectionProxy) DataSourceUtils.getConnection(dataSource)).getTargetConnection();
+    }
+
+    // not a @Configuration, which the application contexts scanning this package would pick up
+    @EnableCaching(order = 100)
+    @EnableTransactionManagement(order = 200)
+    static class Config {
+
+        final Connection primaryConnection = mock(Connection.class);
+
+        final Connection replicaConnection = mock(Connection.class);
+
+        @Bean
+        ReplicaRoutingDataSource dataSource() throws SQLException {
+            ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(database(this.primaryConnection));
+            dataSource.setReplicas(Collections.singletonList(database(this.replicaConnection)));
+            dataSource.setHealthCheckInterval(60_000);
+            return dataSource;
+        }
+
+        @Bean
+        PlatformTransactionManager transactionManager(DataSource dataSource) {
+            return new DataSourceTransactionManager(dataSource);
+        }
+
+        @Bean
+        CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager("owners", "pets", "ownerPages");
+        }
+
+        @Bean
+        PetRepository petRepository() {
+            return mock(PetRepository.class);
+        }
+
+        @Bean
+        ClinicService clinicService(PetRepository petRepository) {
+            return new ClinicServiceImpl(petRepository, mock(VetRepository.class), mock(OwnerRepository.class),
+                mock(VisitRepository.class), mock(ReferenceDataCache.class));
+        }
+
+        private static DataSource database(Connection connection) throws SQLException {
+            DataSource dataSource = mock(DataSource.class);
+            given(dataSource.getConnection()).willReturn(connection);
+            given(connection.isValid(anyInt())).willReturn(true);
+            return dataSource;
+        }
+    }
+
+}
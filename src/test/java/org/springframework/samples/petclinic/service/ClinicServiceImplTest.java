@@ -9,12 +9,14 @@ import org.springframework.dao.DataAccessException;
 import org.springframework.samples.petclinic.model.*;
 import org.springframework.samples.petclinic.repository.OwnerRepository;
 import org.springframework.samples.petclinic.repository.PetRepository;
+import org.springframework.samples.petclinic.repository.ReferenceDataCache;
 import org.springframework.samples.petclinic.repository.VetRepository;
 import org.springframework.samples.petclinic.repository.VisitRepository;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -38,6 +40,8 @@ class ClinicServiceImplTest {
     OwnerRepository ownerRepository;
     @Mock
     VisitRepository visitRepository;
+    @Mock
+    ReferenceDataCache referenceDataCache;
 
     @Test
     void findPetTypes_shouldSucceed() {
@@ -46,32 +50,63 @@ class ClinicServiceImplTest {
         PetType petType = new PetType();
         petType.setName("Berger");
         petTypes.add(petType);
-        given(petRepository.findPetTypes()).willReturn(petTypes);
+        given(referenceDataCache.getPetTypes()).willReturn(petTypes);
 
         //WHEN
         Collection<PetType> foundPetTypes = service.findPetTypes();
 
         //THEN
         assertThat(foundPetTypes).hasSize(1);
-        then(petRepository).should().findPetTypes();
-        then(petRepository).shouldHaveNoMoreInteractions();
+        then(referenceDataCache).should().getPetTypes();
+        then(referenceDataCache).shouldHaveNoMoreInteractions();
+        then(petRepository).shouldHaveZeroInteractions();
 
     }
 
     @Test
     void findPetTypes_shouldThrowException() {
         //GIVEN
-        given(petRepository.findPetTypes()).willThrow(new DataAccessException("Boom") {});
+        given(referenceDataCache.getPetTypes()).willThrow(new DataAccessException("Boom") {});
 
         //WHEN
 
         //THEN
         assertThrows(DataAccessException.class, () -> service.findPetTypes());
-        then(petRepository).should().findPetTypes();
-        then(petRepository).shouldHaveNoMoreInteractions();
+        then(referenceDataCache).should().getPetTypes();
+        then(referenceDataCache).shouldHaveNoMoreInteractions();
 
     }
 
+    @Test
+    void findPetTypeByName_shouldSucceed() {
+        //GIVEN
+        PetType petType = new PetType();
+        petType.setName("Berger");
+        given(referenceDataCache.findPetTypeByName("Berger")).willReturn(petType);
+
+        //WHEN
+        PetType foundPetType = service.findPetTypeByName("Berger");
+
+        //THEN
+        assertThat(foundPetType).isSameAs(petType);
+        then(referenceDataCache).should().findPetTypeByName("Berger");
+        then(referenceDataCache).shouldHaveNoMoreInteractions();
+    }
+
+    @Test
+    void findPetTypeByName_shouldNotInvalidateWhenNotFound() {
+        //GIVEN
+        given(referenceDataCache.findPetTypeByName("Berger")).willReturn(null);
+
+        //WHEN
+        PetType foundPetType = service.findPetTypeByName("Berger");
+
+        //THEN
+        assertNull(foundPetType);
+        then(referenceDataCache).should().findPetTypeByName("Berger");
+        then(referenceDataCache).shouldHaveNoMoreInteractions();
+    }
+
     @Test
     void findOwnerById_shouldSucceed() {
         //GIVEN
@@ -141,6 +176,22 @@ class ClinicServiceImplTest {
         then(ownerRepository).shouldHaveNoMoreInteractions();
     }
 
+    @Test
+    void findOwnerSummariesByLastName_shouldSucceed() {
+        //GIVEN
+        OwnerSummaryPage page = new OwnerSummaryPage(Collections.singletonList(new OwnerSummary(1, "Thomas", "Basset",
+            "70 rue du point de beauvais", "Bourg Le Roi", "0635284672", Collections.singletonList("Leo"))), 5, true);
+        given(ownerRepository.findSummariesByLastName(anyString(), anyInt(), anyInt())).willReturn(page);
+
+        //WHEN
+        OwnerSummaryPage foundPage = service.findOwnerSummariesByLastName("Basset", 0, 5);
+
+        //THEN
+        assertThat(foundPage.getContent()).hasSize(1);
+        then(ownerRepository).should().findSummariesByLastName("Basset", 0, 5);
+        then(ownerRepository).shouldHaveNoMoreInteractions();
+    }
+
     @Test
     void saveOwner_succeed() {
         //GIVEN
@@ -183,6 +234,36 @@ class ClinicServiceImplTest {
         then(visitRepository).shouldHaveNoMoreInteractions();
     }
 
+    @Test
+    void saveVisits_succeed() {
+        //GIVEN
+        List<Visit> visits = new ArrayList<>();
+        visits.add(new Visit());
+        visits.add(new Visit());
+
+        //WHEN
+        service.saveVisits(visits);
+
+        //THEN
+        then(visitRepository).should().saveAll(visits);
+        then(visitRepository).shouldHaveNoMoreInteractions();
+    }
+
+    @Test
+    void saveOwners_succeed() {
+        //GIVEN
+        List<Owner> owners = new ArrayList<>();
+        owners.add(new Owner());
+        owners.add(new Owner());
+
+        //WHEN
+        service.saveOwners(owners);
+
+        //THEN
+        then(ownerRepository).should().saveAll(owners);
+        then(ownerRepository).shouldHaveNoMoreInteractions();
+    }
+
     @Test
     void saveVisit_sendException() {
         //GIVEN
@@ -0,0 +1,91 @@
+package org.springframework.samples.petclinic.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.samples.petclinic.repository.jdbc.JdbcOwnerExportRepositoryImpl;
+
+import java.io.StringWriter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OwnerExportServiceTest {
+
+    EmbeddedDatabase database;
+
+    JdbcTemplate jdbcTemplate;
+
+    OwnerExportService service;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+            .setType(EmbeddedDatabaseType.HSQL)
+            .generateUniqueName(true)
+            .addScript("db/hsqldb/initDB.sql")
+            .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.update("INSERT INTO types VALUES (1, 'cat')");
+        service = new OwnerExportService(new JdbcOwnerExportRepositoryImpl(database, 10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void exportCsv_shouldQuoteCommasQuotesAndLineBreaks() throws Exception {
+        //GIVEN
+        jdbcTemplate.update("INSERT INTO owners VALUES (1, 'George', 'Franklin', ?, ?, '6085551023')",
+            "110, W. \"Liberty\" St.", "Madison\nWisconsin");
+        jdbcTemplate.update("INSERT INTO pets VALUES (1, 'Leo', '2010-09-07', 1, 1)");
+        jdbcTemplate.update("INSERT INTO visits VALUES (1, 1, '2013-01-01', 'rabies shot')");
+        StringWriter writer = new StringWriter();
+
+        //WHEN
+        service.exportCsv(writer);
+
+        //THEN
+        assertThat(writer.toString()).isEqualTo(
+            "owner_id,first_name,last_name,address,city,telephone,pet_id,pet_name,birth_date,type_name,visit_id," +
+                "visit_date,description\r\n" +
+                "1,George,Franklin,\"110, W. \"\"Liberty\"\" St.\",\"Madison\nWisconsin\",6085551023,1,Leo,2010-09-07," +
+                "cat,1,2013-01-01,rabies shot\r\n");
+    }
+
+    @Test
+    void exportJson_shouldNestPetsAndVisitsInTheirOwner() throws Exception {
+        //GIVEN
+        jdbcTemplate.update("INSERT INTO owners VALUES (1, 'Jean', 'Coleman', '105 N. Lake St.', 'Monona', '6085552654')");
+        jdbcTemplate.update("INSERT INTO owners VALUES (2, 'Betty', 'Davis', '638 Cardinal Ave.', 'Sun Prairie', '6085551749')");
+        jdbcTemplate.update("INSERT INTO pets VALUES (1, 'Samantha', '2012-09-04', 1, 1)");
+        jdbcTemplate.update("INSERT INTO pets VALUES (2, 'Max', '2012-09-04', 1, 1)");
+        jdbcTemplate.update("INSERT INTO visits VALUES (1, 1, '2013-01-01', 'rabies shot')");
+        jdbcTemplate.update("INSERT INTO visits VALUES (2, 1, '2013-01-04', 'spayed')");
+        StringWriter writer = new StringWriter();
+
+        //WHEN
+        service.exportJson(writer);
+
+        //THEN
+        JsonNode owners = new ObjectMapper().readTree(writer.toString());
+        assertThat(owners).hasSize(2);
+        JsonNode jean = owners.get(0);
+        assertThat(jean.get("lastName").asText()).isEqualTo("Coleman");
+        assertThat(jean.get("pets")).hasSize(2);
+        assertThat(jean.get("pets").get(0).get("name").asText()).isEqualTo("Samantha");
+        assertThat(jean.get("pets").get(0).get("type").asText()).isEqualTo("cat");
+        assertThat(jean.get("pets").get(0).get("visits")).hasSize(2);
+        assertThat(jean.get("pets").get(0).get("visits").get(1).get("description").asText()).isEqualTo("spayed");
+        assertThat(jean.get("pets").get(1).get("visits")).isEmpty();
+        assertThat(owners.get(1).get("lastName").asText()).isEqualTo("Davis");
+        assertThat(owners.get(1).get("pets")).isEmpty();
+    }
+}
@@ -0,0 +1,107 @@
+package org.springframework.samples.petclinic.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.model.PetType;
+
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.times;
+
+@ExtendWith(MockitoExtension.class)
+class OwnerImportServiceTest {
+
+    @Mock
+    ClinicService clinicService;
+
+    OwnerImportService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new OwnerImportService(clinicService, 2);
+    }
+
+    @Test
+    void importCsv_shouldGroupRowsByOwnerAndPet() throws Exception {
+        //GIVEN
+        PetType cat = new PetType();
+        cat.setName("cat");
+        given(clinicService.findPetTypeByName("cat")).willReturn(cat);
+        String csv = "owner_id,first_name,last_name,address,city,telephone,pet_id,pet_name,birth_date,type_name,visit_id\r\n" +
+            "1,George,Franklin,\"110 W. Liberty St.\",Madison,6085551023,1,Leo,2010-09-07,cat,1\r\n" +
+            "1,George,Franklin,\"110 W. Liberty St.\",Madison,6085551023,1,Leo,2010-09-07,cat,2\r\n" +
+            "1,George,Franklin,\"110 W. Liberty St.\",Madison,6085551023,2,Max,2012-08-06,cat,\r\n" +
+            "2,Betty,Davis,\"638 Cardinal Ave., Sun Prairie\",Madison,6085551749,,,,,\r\n" +
+            "3,Eduardo,Rodriquez,,Madison,6085558763,,,,,\r\n";
+        List<Owner> saved = new ArrayList<>();
+        ArgumentCaptor<Collection<Owner>> captor = captor();
+
+        //WHEN
+        OwnerImportReport report = service.importCsv(new StringReader(csv));
+
+        //THEN
+        then(clinicService).should().saveOwners(captor.capture());
+        saved.addAll(captor.getValue());
+        assertThat(saved).extracting(Owner::getLastName).containsExactly("Franklin", "Davis");
+        assertThat(saved.get(0).getPets()).extracting(Pet::getName).containsExactly("Leo", "Max");
+        assertThat(saved.get(0).getPet("Leo").getBirthDate()).isEqualTo(LocalDate.of(2010, 9, 7));
+        assertThat(saved.get(1).getAddress()).isEqualTo("638 Cardinal Ave., Sun Prairie");
+        assertThat(saved.get(1).getPets()).isEmpty();
+        assertThat(report.getOwnersImported()).isEqualTo(2);
+        assertThat(report.getPetsImported()).isEqualTo(2);
+        assertThat(report.getOwnersRejected()).isEqualTo(1);
+        assertThat(report.getRejections().get(0).getLine()).isEqualTo(6);
+        assertThat(report.getRejections().get(0).getMessages()).containsExactly("address: must not be empty");
+        then(clinicService).should(times(1)).findPetTypeByName("cat");
+    }
+
+    @Test
+    void importJson_shouldWriteOwnersOneByOneWhenChunkFails() throws Exception {
+        //GIVEN
+        String json = "[\n" +
+            "{\"firstName\": \"Jean\", \"lastName\": \"Coleman\", \"address\": \"105 N. Lake St.\", \"city\": \"Monona\", \"telephone\": \"6085552654\",\n" +
+            " \"pets\": [{\"name\": \"Samantha\", \"birthDate\": \"2012-09-04\", \"type\": \"dragon\"}]},\n" +
+            "{\"firstName\": \"Jeff\", \"lastName\": \"Black\", \"address\": \"1450 Oak Blvd.\", \"city\": \"Monona\", \"telephone\": \"6085555387\"},\n" +
+            "{\"firstName\": \"Maria\", \"lastName\": \"Escobito\", \"address\": \"345 Maple St.\", \"city\": \"Madison\", \"telephone\": \"6085557683\"}\n" +
+            "]";
+        willThrow(new DataIntegrityViolationException("Boom"))
+            .willDoNothing()
+            .willThrow(new DataIntegrityViolationException("Boom"))
+            .given(clinicService).saveOwners(anyCollection());
+        List<OwnerImportReport> progress = new ArrayList<>();
+
+        //WHEN
+        OwnerImportReport report = service.importJson(new StringReader(json), progress::add);
+
+        //THEN
+        then(clinicService).should(times(3)).saveOwners(anyCollection());
+        assertThat(report.getOwnersImported()).isEqualTo(1);
+        assertThat(report.getOwnersRejected()).isEqualTo(2);
+        assertThat(report.getRejections()).extracting(OwnerImportReport.Rejection::getLine).containsExactly(2L, 5L);
+        assertThat(report.getRejections().get(0).getMessages())
+            .containsExactly("pet 'Samantha' type: unknown pet type 'dragon'", "pet 'Samantha' type: required");
+        assertThat(report.getChunkMillis()).hasSize(1);
+        assertThat(progress).hasSize(1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<Collection<Owner>> captor() {
+        return ArgumentCaptor.forClass(Collection.class);
+    }
+}
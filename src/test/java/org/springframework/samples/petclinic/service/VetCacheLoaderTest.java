@@ -0,0 +1,95 @@
+package org.springframework.samples.petclinic.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.CacheManager;
+import org.springframework.samples.petclinic.model.Vet;
+import org.springframework.samples.petclinic.repository.VetRepository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.mock;
+
+@ExtendWith(MockitoExtension.class)
+class VetCacheLoaderTest {
+
+    @Mock
+    VetRepository vetRepository;
+    @Mock
+    PlatformTransactionManager transactionManager;
+    @Mock
+    TransactionStatus transactionStatus;
+    @Mock
+    ObjectProvider<CacheManager> cacheManager;
+
+    VetCacheLoader loader;
+
+    @BeforeEach
+    void setUp() {
+        loader = new VetCacheLoader(vetRepository, transactionManager, cacheManager);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void load_shouldReadVetsInReadOnlyTransaction() {
+        //GIVEN
+        List<Vet> vets = new ArrayList<>();
+        vets.add(new Vet());
+        given(vetRepository.findAll()).willReturn(vets);
+        given(transactionManager.getTransaction(any(TransactionDefinition.class))).willReturn(transactionStatus);
+        ArgumentCaptor<TransactionDefinition> definition = ArgumentCaptor.forClass(TransactionDefinition.class);
+
+        //WHEN
+        Collection<Vet> snapshot = (Collection<Vet>) loader.load("key");
+
+        //THEN
+        assertThat(snapshot).containsExactlyElementsOf(vets);
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.add(new Vet()));
+        then(transactionManager).should().getTransaction(definition.capture());
+        assertThat(definition.getValue().isReadOnly()).isTrue();
+        then(transactionManager).should().commit(transactionStatus);
+    }
+
+    @Test
+    void snapshot_shouldInitializeSpecialties() {
+        //GIVEN
+        Vet vet = mock(Vet.class);
+        List<Vet> vets = new ArrayList<>();
+        vets.add(vet);
+
+        //WHEN
+        Collection<Vet> snapshot = VetCacheLoader.snapshot(vets);
+
+        //THEN
+        assertThat(snapshot).containsExactly(vet);
+        then(vet).should().getNrOfSpecialties();
+    }
+
+    @Test
+    void afterSingletonsInstantiated_shouldSkipWithoutCacheManager() {
+        //GIVEN
+        given(cacheManager.getIfAvailable()).willReturn(null);
+
+        //WHEN
+        loader.afterSingletonsInstantiated();
+
+        //THEN
+        then(vetRepository).shouldHaveZeroInteractions();
+        then(transactionManager).shouldHaveZeroInteractions();
+    }
+}
@@ -0,0 +1,104 @@
+package org.springframework.samples.petclinic.util;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.jmx.export.MBeanExportOperations;
+import org.springframework.samples.petclinic.model.Vet;
+import org.springframework.samples.petclinic.repository.VetRepository;
+
+import javax.management.ObjectName;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+
+@ExtendWith(MockitoExtension.class)
+class CallMonitoringAspectTest {
+
+    @Mock
+    ObjectProvider<MBeanExportOperations> mbeanExporterProvider;
+    @Mock
+    MBeanExportOperations mbeanExporter;
+    @Mock
+    VetRepository vetRepository;
+
+    CallMonitoringAspect aspect;
+
+    @BeforeEach
+    void setUp() {
+        given(mbeanExporterProvider.getIfAvailable()).willReturn(mbeanExporter);
+        aspect = new CallMonitoringAspect(mbeanExporterProvider);
+    }
+
+    @Test
+    void invoke_shouldKeepStatisticsPerRepositoryMethod() throws Throwable {
+        //GIVEN
+        List<Vet> vets = Arrays.asList(new Vet(), new Vet());
+        ProceedingJoinPoint findAll = joinPoint(VetRepository.class.getMethod("findAll"));
+        given(findAll.proceed()).willReturn(vets);
+        ProceedingJoinPoint findSpecialties = joinPoint(VetRepository.class.getMethod("findSpecialties"));
+        given(findSpecialties.proceed()).willThrow(new DataRetrievalFailureException("Boom"));
+
+        //WHEN
+        aspect.invoke(findAll);
+        aspect.invoke(findAll);
+        assertThrows(DataRetrievalFailureException.class, () -> aspect.invoke(findSpecialties));
+
+        //THEN
+        ArgumentCaptor<Object> statistics = ArgumentCaptor.forClass(Object.class);
+        ArgumentCaptor<ObjectName> names = ArgumentCaptor.forClass(ObjectName.class);
+        then(mbeanExporter).should(times(2)).registerManagedResource(statistics.capture(), names.capture());
+        assertThat(names.getAllValues().get(0).getKeyProperty("method")).isEqualTo("\"findAll()\"");
+        MethodCallStatistics findAllStatistics = (MethodCallStatistics) statistics.getAllValues().get(0);
+        assertThat(findAllStatistics.getCallCount()).isEqualTo(2);
+        assertThat(findAllStatistics.getRowCount()).isEqualTo(4);
+        assertThat(findAllStatistics.getRowCountMean()).isEqualTo(2.0);
+        MethodCallStatistics findSpecialtiesStatistics = (MethodCallStatistics) statistics.getAllValues().get(1);
+        assertThat(findSpecialtiesStatistics.getErrorCount()).isEqualTo(1);
+        assertThat(findSpecialtiesStatistics.getRowCount()).isZero();
+        assertThat(aspect.getCallCount()).isEqualTo(3);
+        assertThat(aspect.getErrorCount()).isEqualTo(1);
+    }
+
+    @Test
+    void invoke_shouldShareStatisticsBeyondMaxMethods() throws Throwable {
+        //GIVEN
+        aspect.setMaxMethods(1);
+
+        //WHEN
+        aspect.invoke(joinPoint(VetRepository.class.getMethod("findAll")));
+        aspect.invoke(joinPoint(VetRepository.class.getMethod("findSpecialties")));
+        aspect.invoke(joinPoint(VetRepository.class.getMethod("findSpecialties")));
+
+        //THEN
+        ArgumentCaptor<ObjectName> names = ArgumentCaptor.forClass(ObjectName.class);
+        then(mbeanExporter).should(times(2)).registerManagedResource(any(), names.capture());
+        assertThat(names.getAllValues().get(1).getKeyProperty("method")).isEqualTo("other");
+        assertThat(aspect.getMethodCallTimes()).hasSize(2);
+        assertThat(aspect.getMethodCallTimes()[1]).startsWith("*.other count=2");
+    }
+
+    private ProceedingJoinPoint joinPoint(Method method) {
+        MethodSignature signature = mock(MethodSignature.class);
+        given(signature.getMethod()).willReturn(method);
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        given(joinPoint.getSignature()).willReturn(signature);
+        given(joinPoint.getTarget()).willReturn(vetRepository);
+        return joinPoint;
+    }
+}
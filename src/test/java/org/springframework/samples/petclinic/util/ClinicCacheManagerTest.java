@@ -0,0 +1,58 @@
+package org.springframework.samples.petclinic.util;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ClinicCacheManagerTest {
+
+    @Test
+    void getCache_shouldServeOldValueWhileRefreshing() {
+        //GIVEN
+        AtomicLong nanos = new AtomicLong();
+        AtomicInteger loads = new AtomicInteger();
+        CacheLoader<Object, Object> loader = key -> key + "-" + loads.incrementAndGet();
+        ClinicCacheManager cacheManager = new ClinicCacheManager();
+        cacheManager.setCacheSpecifications(Collections.singletonMap("vets", "maximumSize=10,refreshAfterWrite=30s,recordStats"));
+        cacheManager.setCacheLoaders(Collections.singletonMap("vets", loader));
+        cacheManager.setRefreshExecutor(Runnable::run);
+        cacheManager.setTicker(nanos::get);
+        cacheManager.afterPropertiesSet();
+        Cache cache = cacheManager.getCache("vets");
+
+        //WHEN
+        Object loaded = cache.get("all").get();
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(31));
+        Object stale = cache.get("all").get();
+        Object refreshed = cache.get("all").get();
+
+        //THEN
+        assertThat(loaded).isEqualTo("all-1");
+        assertThat(stale).isEqualTo("all-1");
+        assertThat(refreshed).isEqualTo("all-2");
+        assertThat(cacheManager.getCacheNames()).containsExactly("vets");
+        assertThat(cacheManager.getCacheStatistics()).hasSize(1);
+        assertThat(cacheManager.getCacheStatistics()[0]).startsWith("vets: size=1, hits=2, misses=1");
+    }
+
+    @Test
+    void afterPropertiesSet_shouldRejectRefreshWithoutLoader() {
+        //GIVEN
+        ClinicCacheManager cacheManager = new ClinicCacheManager();
+        cacheManager.setCacheSpecifications(Collections.singletonMap("vets", "refreshAfterWrite=30s"));
+
+        //WHEN
+        IllegalStateException ex = assertThrows(IllegalStateException.class, cacheManager::afterPropertiesSet);
+
+        //THEN
+        assertThat(ex.getMessage()).contains("vets");
+    }
+}
@@ -0,0 +1,80 @@
+package org.springframework.samples.petclinic.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.model.PetType;
+import org.springframework.samples.petclinic.model.Visit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CopyingCacheTest {
+
+    CopyingCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new CopyingCache(new ConcurrentMapCache("owners"), new EntityGraphCopier());
+    }
+
+    @Test
+    void get_shouldHandOutCopiesOfLoadedOwner() {
+        //GIVEN
+        Owner owner = owner();
+
+        //WHEN
+        Owner loaded = cache.get(1, () -> owner);
+        Owner first = cache.get(1, () -> null);
+        Owner second = (Owner) cache.get(1).get();
+
+        //THEN
+        assertThat(loaded).isSameAs(owner);
+        assertThat(first).isNotSameAs(owner).isNotSameAs(second);
+        assertThat(first.getLastName()).isEqualTo("Franklin");
+        Pet pet = first.getPets().get(0);
+        assertThat(pet).isNotSameAs(owner.getPets().get(0));
+        assertThat(pet.getOwner()).isSameAs(first);
+        assertThat(pet.getType()).isSameAs(owner.getPets().get(0).getType());
+        assertThat(pet.getVisits()).hasSize(1);
+        assertThat(pet.getVisits().get(0).getPet()).isSameAs(pet);
+    }
+
+    @Test
+    void put_shouldIsolateCachedOwnerFromLaterChanges() {
+        //GIVEN
+        Owner owner = owner();
+        cache.put(1, owner);
+
+        //WHEN
+        owner.setCity("Paris");
+        Owner read = cache.get(1, Owner.class);
+        read.getPets().get(0).addVisit(new Visit());
+
+        //THEN
+        assertThat(read.getCity()).isEqualTo("Madison");
+        assertThat(cache.get(1, Owner.class).getPets().get(0).getVisits()).hasSize(1);
+    }
+
+    private static Owner owner() {
+        PetType cat = new PetType();
+        cat.setId(1);
+        cat.setName("cat");
+        Owner owner = new Owner();
+        owner.setId(1);
+        owner.setFirstName("George");
+        owner.setLastName("Franklin");
+        owner.setCity("Madison");
+        Pet pet = new Pet();
+        pet.setId(1);
+        pet.setName("Leo");
+        pet.setType(cat);
+        owner.addPet(pet);
+        Visit visit = new Visit();
+        visit.setId(1);
+        visit.setDescription("rabies shot");
+        pet.addVisit(visit);
+        return owner;
+    }
+}
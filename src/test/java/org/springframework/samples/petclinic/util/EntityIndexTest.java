@@ -0,0 +1,85 @@
+package org.springframework.samples.petclinic.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectRetrievalFailureException;
+import org.springframework.samples.petclinic.model.BaseEntity;
+import org.springframework.samples.petclinic.model.PetType;
+import org.springframework.samples.petclinic.model.Specialty;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EntityIndexTest {
+
+    @Test
+    void getById_shouldFindEveryIndexedEntity() {
+        //GIVEN
+        List<PetType> petTypes = new ArrayList<>();
+        for (int id = -50; id < 5000; id += 7) {
+            petTypes.add(petType(id, "type" + id));
+        }
+
+        //WHEN
+        EntityIndex<PetType> index = EntityIndex.of(petTypes, PetType.class);
+
+        //THEN
+        assertThat(index.size()).isEqualTo(petTypes.size());
+        for (PetType petType : petTypes) {
+            assertThat(index.getById(petType.getId())).isSameAs(petType);
+        }
+    }
+
+    @Test
+    void getById_shouldThrowExceptionWhenNotFound() {
+        //GIVEN
+        EntityIndex<PetType> index = EntityIndex.of(Collections.singletonList(petType(1, "cat")), PetType.class);
+
+        //THEN
+        assertThat(index.findById(2)).isNull();
+        ObjectRetrievalFailureException exception = assertThrows(ObjectRetrievalFailureException.class, () -> index.getById(2));
+        assertThat(exception.getPersistentClass()).isEqualTo(PetType.class);
+        assertThat(exception.getIdentifier()).isEqualTo(2);
+    }
+
+    @Test
+    void of_shouldKeepFirstEntityAndSkipOtherClassesAndNewEntities() {
+        //GIVEN
+        PetType cat = petType(1, "cat");
+        Specialty radiology = new Specialty();
+        radiology.setId(2);
+        List<BaseEntity> entities = new ArrayList<>();
+        entities.add(cat);
+        entities.add(petType(1, "duplicate"));
+        entities.add(radiology);
+        entities.add(new PetType());
+
+        //WHEN
+        EntityIndex<PetType> index = EntityIndex.of(entities, PetType.class);
+
+        //THEN
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.getById(1)).isSameAs(cat);
+        assertThat(index.findById(2)).isNull();
+    }
+
+    @Test
+    void of_shouldAcceptEmptyCollection() {
+        //WHEN
+        EntityIndex<PetType> index = EntityIndex.of(Collections.emptyList(), PetType.class);
+
+        //THEN
+        assertThat(index.size()).isZero();
+        assertThat(index.findById(0)).isNull();
+    }
+
+    private PetType petType(int id, String name) {
+        PetType petType = new PetType();
+        petType.setId(id);
+        petType.setName(name);
+        return petType;
+    }
+}
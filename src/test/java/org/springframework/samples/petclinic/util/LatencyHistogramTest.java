@@ -0,0 +1,67 @@
+package org.springframework.samples.petclinic.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class LatencyHistogramTest {
+
+    @Test
+    void getPercentileNanos_shouldStayWithinBucketPrecision() {
+        //GIVEN
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        //WHEN
+        for (long micros = 1; micros <= 1000; micros++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(micros));
+        }
+
+        //THEN
+        assertThat(histogram.getCount()).isEqualTo(1000);
+        assertThat(histogram.getMeanNanos()).isEqualTo(500_500);
+        assertThat(histogram.getMaxNanos()).isEqualTo(1_000_000);
+        assertThat((double) histogram.getPercentileNanos(0.50)).isCloseTo(500_000, within(500_000 / 16.0));
+        assertThat((double) histogram.getPercentileNanos(0.99)).isCloseTo(990_000, within(990_000 / 16.0));
+        assertThat(histogram.getPercentileNanos(1.0)).isEqualTo(1_000_000);
+        assertThat(LatencyHistogram.toMillis(histogram.getMeanNanos())).isEqualTo(0.5005);
+    }
+
+    @Test
+    void bucketIndex_shouldMatchBucketUpperBound() {
+        for (long value : new long[]{0, 15, 16, 17, 31, 32, 1000, 123_456_789, (1L << 40) - 1}) {
+            int index = LatencyHistogram.bucketIndex(value);
+            assertThat(LatencyHistogram.bucketUpperBound(index)).isGreaterThanOrEqualTo(value);
+            assertThat(index == 0 || LatencyHistogram.bucketUpperBound(index - 1) < value).isTrue();
+        }
+    }
+
+    @Test
+    void record_shouldNotLoseConcurrentCalls() throws Exception {
+        //GIVEN
+        LatencyHistogram histogram = new LatencyHistogram();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        //WHEN
+        for (int thread = 0; thread < 4; thread++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    histogram.record(i);
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+
+        //THEN
+        assertThat(histogram.getCount()).isEqualTo(400_000);
+        assertThat(histogram.getPercentileNanos(1.0)).isEqualTo(99_999);
+        histogram.reset();
+        assertThat(histogram.getCount()).isZero();
+        assertThat(histogram.getPercentileNanos(0.5)).isZero();
+    }
+}
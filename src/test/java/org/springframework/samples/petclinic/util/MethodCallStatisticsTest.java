@@ -0,0 +1,34 @@
+package org.springframework.samples.petclinic.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.samples.petclinic.model.OwnerSummary;
+import org.springframework.samples.petclinic.model.OwnerSummaryPage;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MethodCallStatisticsTest {
+
+    @Test
+    void record_shouldCountRowsOfReturnedValues() {
+        //GIVEN
+        MethodCallStatistics statistics = new MethodCallStatistics("OwnerRepository", "findSummariesByLastName");
+        OwnerSummary owner = new OwnerSummary(1, "George", "Franklin", "110 W. Liberty St.", "Madison", "6085551023",
+            Collections.singletonList("Leo"));
+        OwnerSummaryPage page = new OwnerSummaryPage(Arrays.asList(owner, owner, owner), 5, true);
+
+        //WHEN
+        statistics.record(1000, false, page, true);
+        statistics.record(1000, false, Arrays.asList("a", "b"), true);
+        statistics.record(1000, false, null, true);
+        statistics.record(1000, true, page, true);
+
+        //THEN
+        assertThat(statistics.getCallCount()).isEqualTo(4);
+        assertThat(statistics.getErrorCount()).isEqualTo(1);
+        assertThat(statistics.getRowCount()).isEqualTo(5);
+        assertThat(statistics.getRowCountMean()).isEqualTo(5.0 / 3);
+    }
+}
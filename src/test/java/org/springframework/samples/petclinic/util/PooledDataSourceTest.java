@@ -0,0 +1,89 @@
+package org.springframework.samples.petclinic.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Connection;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PooledDataSourceTest {
+
+    @Test
+    void poolProperties_shouldKeepPoolSettingsWithoutPrefix() {
+        //GIVEN
+        Properties properties = new Properties();
+        properties.setProperty("jdbc.url", "jdbc:hsqldb:mem:pool");
+        properties.setProperty("jdbc.pool.type", "tomcat");
+        properties.setProperty("jdbc.pool.maxActive", "5");
+
+        //WHEN
+        Properties poolProperties = PooledDataSource.poolProperties(properties);
+
+        //THEN
+        assertThat(poolProperties).hasSize(1).containsEntry("maxActive", "5");
+    }
+
+    @Test
+    void getConnection_shouldBeMonitoredForTomcatPool() throws Exception {
+        //GIVEN
+        Properties poolProperties = new Properties();
+        poolProperties.setProperty("maxActive", "3");
+        poolProperties.setProperty("initialSize", "2");
+        PooledDataSource dataSource = pooledDataSource(PooledDataSource.TOMCAT, poolProperties);
+        ConnectionPoolMonitor monitor = new ConnectionPoolMonitor(dataSource);
+
+        //WHEN
+        try (Connection connection = dataSource.getConnection()) {
+
+            //THEN
+            assertThat(connection.isValid(1)).isTrue();
+            assertThat(monitor.getType()).isEqualTo(PooledDataSource.TOMCAT);
+            assertThat(monitor.getActive()).isEqualTo(1);
+            assertThat(monitor.getMaxActive()).isEqualTo(3);
+        } finally {
+            dataSource.close();
+        }
+        assertThat(dataSource.getConnectionWaitTimes().getCount()).isEqualTo(1);
+        assertThat(monitor.getConnectionTimeoutCount()).isZero();
+    }
+
+    @Test
+    void getConnectionWithCredentials_shouldBeMonitored() throws Exception {
+        //GIVEN
+        PooledDataSource dataSource = pooledDataSource(DriverManagerDataSource.class.getName(), new Properties());
+
+        //WHEN
+        try (Connection connection = dataSource.getConnection("sa", "")) {
+
+            //THEN
+            assertThat(connection.isValid(1)).isTrue();
+        }
+        assertThat(dataSource.getConnectionWaitTimes().getCount()).isEqualTo(1);
+        assertThat(dataSource.getConnectionTimeoutCount()).isZero();
+    }
+
+    @Test
+    void afterPropertiesSet_shouldInstantiateDataSourceClass() throws Exception {
+        //WHEN
+        PooledDataSource dataSource = pooledDataSource(DriverManagerDataSource.class.getName(), new Properties());
+
+        //THEN
+        assertThat(dataSource.getTargetDataSource()).isInstanceOf(DriverManagerDataSource.class);
+        assertThat(((DriverManagerDataSource) dataSource.getTargetDataSource()).getUrl()).isEqualTo("jdbc:hsqldb:mem:pool");
+        assertThat(new ConnectionPoolMonitor(dataSource).getActive()).isEqualTo(-1);
+    }
+
+    private static PooledDataSource pooledDataSource(String type, Properties poolProperties) {
+        PooledDataSource dataSource = new PooledDataSource();
+        dataSource.setType(type);
+        dataSource.setDriverClassName("org.hsqldb.jdbcDriver");
+        dataSource.setUrl("jdbc:hsqldb:mem:pool");
+        dataSource.setUsername("sa");
+        dataSource.setPassword("");
+        dataSource.setProperties(poolProperties);
+        dataSource.afterPropertiesSet();
+        return dataSource;
+    }
+}
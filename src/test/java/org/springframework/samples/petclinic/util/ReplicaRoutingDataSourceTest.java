@@ -0,0 +1,172 @@
+package org.springframework.samples.petclinic.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willReturn;
+import static org.mockito.Mockito.mock;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ReplicaRoutingDataSourceTest {
+
+    @Mock
+    DataSource primary;
+
+    @Mock
+    DataSource replica1;
+
+    @Mock
+    DataSource replica2;
+
+    Connection primaryConnection;
+
+    Connection replica1Connection;
+
+    Connection replica2Connection;
+
+    ReplicaRoutingDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        primaryConnection = connection(primary);
+        replica1Connection = connection(replica1);
+        replica2Connection = connection(replica2);
+        dataSource = new ReplicaRoutingDataSource(primary);
+        dataSource.setReplicas(Arrays.asList(replica1, replica2));
+        dataSource.setHealthCheckInterval(60_000);
+        dataSource.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        dataSource.close();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+        ReadYourWrites.unbind();
+    }
+
+    @Test
+    void getConnection_shouldSendReadOnlyTransactionsToReplicasInTurn() throws SQLException {
+        //GIVEN
+        readOnlyTransaction();
+
+        //WHEN
+        Connection first = target(dataSource.getConnection());
+        Connection second = target(dataSource.getConnection());
+        Connection third = target(dataSource.getConnection());
+
+        //THEN
+        assertThat(Arrays.asList(first, second, third)).containsExactly(replica1Connection, replica2Connection,
+            replica1Connection);
+        assertThat(dataSource.getReplicaConnectionCount()).isEqualTo(3);
+        assertThat(dataSource.getReplicaStatus()).containsExactly("replica-1: up, connections=2",
+            "replica-2: up, connections=1");
+    }
+
+    @Test
+    void getConnection_shouldSkipFailedReplicaAndFallBackToPrimary() throws SQLException {
+        //GIVEN
+        given(replica1.getConnection()).willThrow(new SQLException("connection refused"));
+        given(replica2.getConnection()).willThrow(new SQLException("connection refused"));
+        readOnlyTransaction();
+
+        //WHEN
+        Connection connection = target(dataSource.getConnection());
+
+        //THEN
+        assertThat(connection).isSameAs(primaryConnection);
+        assertThat(dataSource.getFallbackCount()).isEqualTo(1);
+        assertThat(dataSource.getReplicaStatus()).containsExactly("replica-1: down, connections=0",
+            "replica-2: down, connections=0");
+
+        //WHEN
+        willReturn(replica2Connection).given(replica2).getConnection();
+        dataSource.checkReplicas();
+
+        //THEN
+        assertThat(target(dataSource.getConnection())).isSameAs(replica2Connection);
+        assertThat(dataSource.getReplicaStatus()).containsExactly("replica-1: down, connections=0",
+            "replica-2: up, connections=1");
+    }
+
+    @Test
+    void getConnection_shouldKeepReadsOnPrimaryAfterWrite() throws SQLException {
+        //GIVEN
+        writeTransaction();
+        Connection write = target(dataSource.getConnection());
+        assertThat(ReadYourWrites.lastWrite()).isNull();
+        TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+        TransactionSynchronizationManager.clearSynchronization();
+        readOnlyTransaction();
+
+        //WHEN
+        Connection read = target(dataSource.getConnection());
+
+        //THEN
+        assertThat(write).isSameAs(primaryConnection);
+        assertThat(read).isSameAs(primaryConnection);
+        assertThat(ReadYourWrites.lastWrite()).isNotNull();
+        assertThat(dataSource.getReadYourWritesCount()).isEqualTo(1);
+        assertThat(dataSource.getReplicaConnectionCount()).isZero();
+    }
+
+    @Test
+    void getConnection_shouldKeepReadsOnReplicasAfterRollback() throws SQLException {
+        //GIVEN
+        writeTransaction();
+        target(dataSource.getConnection());
+        TransactionSynchronizationManager.clearSynchronization();
+        readOnlyTransaction();
+
+        //WHEN
+        Connection read = target(dataSource.getConnection());
+
+        //THEN
+        assertThat(read).isSameAs(replica1Connection);
+        assertThat(ReadYourWrites.lastWrite()).isNull();
+        assertThat(dataSource.getReadYourWritesCount()).isZero();
+    }
+
+    private static Connection connection(DataSource dataSource) throws SQLException {
+        Connection connection = mock(Connection.class);
+        given(connection.isValid(anyInt())).willReturn(true);
+        given(dataSource.getConnection()).willReturn(connection);
+        return connection;
+    }
+
+    private static void writeTransaction() {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    private static void readOnlyTransaction() {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+    }
+
+    private static Connection target(Connection connection) {
+        return ((ConnectionProxy) connection).getTargetConnection();
+    }
+
+}
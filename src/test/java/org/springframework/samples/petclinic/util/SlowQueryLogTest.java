@@ -0,0 +1,92 @@
+package org.springframework.samples.petclinic.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlowQueryLogTest {
+
+    static final String SELECT_OWNER = "SELECT * FROM owners WHERE id = ?";
+
+    static final String PETS_BY_OWNERS = "SELECT * FROM pets WHERE owner_id IN (";
+
+    @Test
+    void record_shouldKeepSlowestQueriesAboveThreshold() {
+        //GIVEN
+        SlowQueryLog log = new SlowQueryLog();
+        log.setThreshold(10);
+        log.setCapacity(2);
+        Class<?>[] parameterTypes = {null, Integer.class, Void.class};
+
+        //WHEN
+        log.record(SELECT_OWNER, TimeUnit.MILLISECONDS.toNanos(1), 1, parameterTypes, 2);
+        log.record(SELECT_OWNER, TimeUnit.MILLISECONDS.toNanos(20), 1, parameterTypes, 2);
+        log.record(SELECT_OWNER, TimeUnit.MILLISECONDS.toNanos(40), 1, parameterTypes, 2);
+        log.record(SELECT_OWNER, TimeUnit.MILLISECONDS.toNanos(30), 1, parameterTypes, 2);
+
+        //THEN
+        assertThat(log.getExecutionCount()).isEqualTo(4);
+        assertThat(log.getSlowExecutionCount()).isEqualTo(3);
+        assertThat(log.getSlowQueries()).hasSize(2);
+        assertThat(log.getSlowQueries()[0]).startsWith("40.000ms rows=1 parameters=[Integer, NULL]").endsWith(SELECT_OWNER);
+        assertThat(log.getSlowQueries()[1]).startsWith("30.000ms");
+        assertThat(log.getStatementStatistics()).containsExactly("count=4 mean=22.750 p95=40.000 max=40.000 rows=4 " + SELECT_OWNER);
+    }
+
+    @Test
+    void record_shouldBoundTrackedStatements() {
+        //GIVEN
+        SlowQueryLog log = new SlowQueryLog();
+        log.setMaxStatements(1);
+
+        //WHEN
+        log.record(SELECT_OWNER, 1000, 1, new Class<?>[0], 0);
+        log.record("SELECT * FROM pets", 1000, 5, new Class<?>[0], 0);
+        log.record("SELECT * FROM vets", 1000, 6, new Class<?>[0], 0);
+
+        //THEN
+        assertThat(log.getStatementStatistics()).hasSize(2);
+        assertThat(log.getStatementStatistics()).anyMatch(line -> line.startsWith("count=2") && line.endsWith("rows=11 other"));
+        assertThat(log.getSlowQueries()).isEmpty();
+    }
+
+    @Test
+    void record_shouldTrackExpandedParameterListsOnce() {
+        //GIVEN
+        SlowQueryLog log = new SlowQueryLog();
+        log.setMaxStatements(2);
+
+        //WHEN
+        for (int ids = 1; ids <= 500; ids++) {
+            String placeholders = String.join(", ", Collections.nCopies(ids, "?"));
+            log.record(PETS_BY_OWNERS + placeholders + ") ORDER BY name", 1000, ids, new Class<?>[0], 0);
+        }
+        log.record("SELECT * FROM visits WHERE pet_id IN (?,?) AND visit_date > ?", 1000, 1, new Class<?>[0], 0);
+
+        //THEN
+        assertThat(log.getStatementStatistics()).hasSize(3)
+            .anyMatch(line -> line.startsWith("count=1 ") && line.endsWith("rows=1 " + PETS_BY_OWNERS + "?) ORDER BY name"))
+            .anyMatch(line -> line.startsWith("count=499 ")
+                && line.endsWith("rows=125249 " + PETS_BY_OWNERS + "?, ...) ORDER BY name"))
+            .anyMatch(line -> line.startsWith("count=1 ") && line.endsWith("rows=1 other"));
+        assertThat(SlowQueryLog.collapsePlaceholderLists("SELECT * FROM visits WHERE pet_id IN (?,?) AND visit_date > ?"))
+            .isEqualTo("SELECT * FROM visits WHERE pet_id IN (?, ...) AND visit_date > ?");
+        assertThat(SlowQueryLog.collapsePlaceholderLists(SELECT_OWNER)).isSameAs(SELECT_OWNER);
+    }
+
+    @Test
+    void record_shouldRecordStatementBatchWithoutSql() {
+        //GIVEN
+        SlowQueryLog log = new SlowQueryLog();
+
+        //WHEN
+        log.record(null, 1000, 3, new Class<?>[0], 0);
+
+        //THEN
+        assertThat(log.getExecutionCount()).isEqualTo(1);
+        assertThat(log.getStatementStatistics()).hasSize(1).allMatch(line -> line.endsWith("rows=3 <batch>"));
+    }
+}
@@ -13,12 +13,17 @@ import org.mockito.InjectMocks;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.OwnerSummary;
+import org.springframework.samples.petclinic.model.OwnerSummaryPage;
 import org.springframework.samples.petclinic.service.ClinicService;
 import org.springframework.test.context.junit.jupiter.web.SpringJUnitWebConfig;
 import org.springframework.test.web.servlet.MockMvc;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.then;
 import static org.mockito.Mockito.reset;
@@ -116,36 +121,73 @@ class OwnerControllerTest {
 
     @Test
     void processFindForm_returnSingleOwner() throws Exception {
-        Owner owner = new Owner();
         String name = "Basset";
-        owner.setLastName(name);
-        owner.setId(1);
+        OwnerSummary owner = ownerSummary(1, name);
 
-        given(clinicService.findOwnerByLastName(name)).willReturn(Lists.newArrayList(owner));
+        given(clinicService.findOwnerSummariesByLastName(name, 0, OwnerController.OWNERS_PAGE_SIZE))
+                .willReturn(new OwnerSummaryPage(Lists.newArrayList(owner), OwnerController.OWNERS_PAGE_SIZE, true));
         mockMvc.perform(get("/owners")
                     .param("lastName", name))
                 .andExpect(status().is3xxRedirection())
                 .andExpect(view().name("redirect:/owners/1"));
 
-        then(clinicService).should().findOwnerByLastName(anyString());
+        then(clinicService).should().findOwnerSummariesByLastName(anyString(), eq(0), anyInt());
     }
 
     @Test
     void processFindForm_returnListOfOwners() throws Exception {
-        given(clinicService.findOwnerByLastName("")).willReturn(Lists.newArrayList(new Owner(), new Owner()));
+        given(clinicService.findOwnerSummariesByLastName("", 0, OwnerController.OWNERS_PAGE_SIZE))
+                .willReturn(new OwnerSummaryPage(Lists.newArrayList(ownerSummary(1, "Basset"), ownerSummary(2, "Thomas")), OwnerController.OWNERS_PAGE_SIZE, true));
         mockMvc.perform(get("/owners"))
                 .andExpect(status().isOk())
+                .andExpect(model().attribute("selections", hasSize(2)))
                 .andExpect(view().name("owners/ownersList"));
 
-        then(clinicService).should().findOwnerByLastName(stringArgumentCaptor.capture());
+        then(clinicService).should().findOwnerSummariesByLastName(stringArgumentCaptor.capture(), eq(0), anyInt());
         assertThat(stringArgumentCaptor.getValue()).isEqualToIgnoringCase("");
     }
 
+    @Test
+    void processFindForm_returnNextPageFromCursor() throws Exception {
+        given(clinicService.findOwnerSummariesByLastNameAfter("", "Basset", 1, OwnerController.OWNERS_PAGE_SIZE))
+                .willReturn(new OwnerSummaryPage(Lists.newArrayList(ownerSummary(2, "Thomas")), OwnerController.OWNERS_PAGE_SIZE, true));
+        mockMvc.perform(get("/owners")
+                        .param("afterLastName", "Basset")
+                        .param("afterId", "1")
+                        .param("page", "1"))
+                .andExpect(status().isOk())
+                .andExpect(model().attribute("selections", hasSize(1)))
+                .andExpect(model().attribute("pageNumber", 1))
+                .andExpect(view().name("owners/ownersList"));
+
+        then(clinicService).should().findOwnerSummariesByLastNameAfter("", "Basset", 1, OwnerController.OWNERS_PAGE_SIZE);
+    }
+
+    @Test
+    void processFindForm_clampsPageBeyondOffsetRange() throws Exception {
+        int lastPage = Integer.MAX_VALUE / OwnerController.OWNERS_PAGE_SIZE - 1;
+        given(clinicService.findOwnerSummariesByLastName("", lastPage, OwnerController.OWNERS_PAGE_SIZE))
+                .willReturn(new OwnerSummaryPage(new ArrayList<>(), OwnerController.OWNERS_PAGE_SIZE, true));
+        mockMvc.perform(get("/owners")
+                        .param("page", String.valueOf(Integer.MAX_VALUE)))
+                .andExpect(status().isOk())
+                .andExpect(view().name("owners/ownersList"));
+
+        then(clinicService).should().findOwnerSummariesByLastName("", lastPage, OwnerController.OWNERS_PAGE_SIZE);
+    }
+
     @Test
     void processFindForm_ownerNotFound() throws Exception {
+        given(clinicService.findOwnerSummariesByLastName("DontFindMe", 0, OwnerController.OWNERS_PAGE_SIZE))
+                .willReturn(new OwnerSummaryPage(new ArrayList<>(), OwnerController.OWNERS_PAGE_SIZE, true));
         mockMvc.perform(get("/owners")
                         .param("lastName","DontFindMe"))
                 .andExpect(status().isOk())
                 .andExpect(view().name("owners/findOwners"));
     }
+
+    private static OwnerSummary ownerSummary(int id, String lastName) {
+        return new OwnerSummary(id, "Thomas", lastName, "70 Point De Beauvais", "Bourg le Roi", "0635284672",
+            Lists.newArrayList("Leo"));
+    }
 }
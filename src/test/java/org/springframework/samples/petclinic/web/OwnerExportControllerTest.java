@@ -0,0 +1,68 @@
+package org.springframework.samples.petclinic.web;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.samples.petclinic.service.OwnerExportService;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.Writer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(MockitoExtension.class)
+class OwnerExportControllerTest {
+
+    @InjectMocks
+    OwnerExportController controller;
+
+    @Mock
+    OwnerExportService ownerExportService;
+
+    MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    void exportCsv() throws Exception {
+        //GIVEN
+        willAnswer(invocation -> {
+            invocation.<Writer>getArgument(0).write("owner_id\r\n1\r\n");
+            return null;
+        }).given(ownerExportService).exportCsv(any(Writer.class));
+
+        //WHEN
+        mockMvc.perform(get("/owners/export.csv"))
+
+        //THEN
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv;charset=UTF-8"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"owners.csv\""))
+                .andExpect(content().string("owner_id\r\n1\r\n"));
+        then(ownerExportService).should().exportCsv(any(Writer.class));
+        then(ownerExportService).shouldHaveNoMoreInteractions();
+    }
+
+    @Test
+    void exportJson() throws Exception {
+        //WHEN
+        mockMvc.perform(get("/owners/export.json"))
+
+        //THEN
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/json;charset=UTF-8"));
+        then(ownerExportService).should().exportJson(any(Writer.class));
+        then(ownerExportService).shouldHaveNoMoreInteractions();
+    }
+}
@@ -0,0 +1,66 @@
+package org.springframework.samples.petclinic.web;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.samples.petclinic.util.RequestTimingMonitor;
+import org.springframework.samples.petclinic.util.RequestTimings;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+class RequestTimingInterceptorTest {
+
+    @Mock
+    ObjectProvider<RequestTimingMonitor> monitorProvider;
+
+    RequestTimingMonitor monitor = new RequestTimingMonitor();
+
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/vets.xml");
+
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    RequestTimingInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        given(monitorProvider.getIfAvailable()).willReturn(monitor);
+        interceptor = new RequestTimingInterceptor(monitorProvider);
+    }
+
+    @Test
+    void afterCompletion_shouldRecordRequestTimings() {
+        //WHEN
+        interceptor.preHandle(request, response, this);
+        RequestTimings timings = RequestTimings.current();
+        interceptor.postHandle(request, response, this, null);
+        interceptor.afterCompletion(request, response, this, null);
+
+        //THEN
+        assertThat(timings.getRequest()).isEqualTo("GET /vets.xml");
+        assertThat(timings.getHandlerNanos() + timings.getViewNanos()).isEqualTo(timings.getTotalNanos());
+        assertThat(RequestTimings.current()).isNull();
+        assertThat(monitor.getRequestCount()).isEqualTo(1);
+    }
+
+    @Test
+    void preHandle_shouldNotTimeRequestsWhenDisabled() {
+        //GIVEN
+        monitor.setEnabled(false);
+
+        //WHEN
+        interceptor.preHandle(request, response, this);
+        interceptor.postHandle(request, response, this, null);
+        interceptor.afterCompletion(request, response, this, null);
+
+        //THEN
+        assertThat(RequestTimings.current()).isNull();
+        assertThat(monitor.getRequestCount()).isZero();
+    }
+}
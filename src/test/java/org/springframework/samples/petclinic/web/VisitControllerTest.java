@@ -0,0 +1,57 @@
+package org.springframework.samples.petclinic.web;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.model.Visit;
+import org.springframework.samples.petclinic.service.ClinicService;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(MockitoExtension.class)
+class VisitControllerTest {
+
+    @InjectMocks
+    VisitController controller;
+
+    @Mock
+    ClinicService clinicService;
+
+    MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    void testShowVisitsLoadsThePetOnce() throws Exception {
+        //GIVEN
+        Pet pet = new Pet();
+        pet.setId(7);
+        Visit visit = new Visit();
+        visit.setId(1);
+        pet.addVisit(visit);
+        given(clinicService.findPetById(7)).willReturn(pet);
+
+        //WHEN
+        mockMvc.perform(get("/owners/6/pets/7/visits"))
+                .andExpect(status().isOk())
+                .andExpect(model().attribute("visits", hasSize(1)))
+                .andExpect(view().name("visitList"));
+
+        //THEN
+        then(clinicService).should().findPetById(7);
+        then(clinicService).shouldHaveNoMoreInteractions();
+    }
+}